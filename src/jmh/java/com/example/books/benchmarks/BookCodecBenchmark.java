@@ -0,0 +1,101 @@
+package com.example.books.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.books.binary.BookBinaryCodec;
+import com.example.books.domain.Book;
+import com.example.books.domain.Isbn;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.type.CollectionType;
+
+/**
+ * Benchmarks of encoding and decoding lists of books as JSON and as application/x-book-binary,
+ * the two representations of GET /books and bulk PUT /books.
+ * The payload size of both representations is printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BookCodecBenchmark {
+
+    @Param({"100", "1000", "100000"})
+    private int size;
+
+    private List<Book> books;
+
+    private ObjectWriter jsonWriter;
+
+    private ObjectReader jsonReader;
+
+    private byte[] json;
+
+    private byte[] binary;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        books = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            books.add(Book.builder()
+                .isbn(Isbn.format(Isbn.withCheckDigit(978_000_000_000L + i)))
+                .author("Author " + (i % 5000))
+                .title("Title number " + i)
+                .build());
+        }
+
+        final ObjectMapper objectMapper = new ObjectMapper();
+        final CollectionType listType = objectMapper.getTypeFactory().constructCollectionType(List.class, Book.class);
+        jsonWriter = objectMapper.writerFor(listType);
+        jsonReader = objectMapper.readerFor(listType);
+
+        json = jsonWriter.writeValueAsBytes(books);
+        binary = encodeBinary();
+        System.out.printf("%n%d books: JSON %d bytes, binary %d bytes (%.0f%%)%n",
+            size, json.length, binary.length, 100.0 * binary.length / json.length);
+    }
+
+    @Benchmark
+    public byte[] encodeJson() throws IOException {
+        return jsonWriter.writeValueAsBytes(books);
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream(binary == null ? 32 : binary.length);
+        BookBinaryCodec.writeBooks(books, output);
+        return output.toByteArray();
+    }
+
+    @Benchmark
+    public List<Book> decodeJson() throws IOException {
+        return jsonReader.readValue(json);
+    }
+
+    @Benchmark
+    public List<Book> decodeBinary() throws IOException {
+        return BookBinaryCodec.readBooks(new ByteArrayInputStream(binary));
+    }
+
+}
@@ -0,0 +1,160 @@
+package com.example.books.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.books.BooksApplication;
+import com.example.books.domain.Book;
+import com.example.books.domain.BookEntity;
+import com.example.books.domain.Isbn;
+import com.example.books.repositories.BookRepository;
+import com.example.books.services.BookService;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Compares the two ways of reading books from the repository.
+ *
+ * The entity variants load managed BookEntity instances in a read-write transaction and map them to Books,
+ * which is how the read paths used to work: Hibernate keeps every entity and a snapshot of its state in the
+ * persistence context and dirty checks them on the flush at commit. The projection variants run the repository
+ * queries that build Books straight from the result set in a read-only transaction, which flushes nothing.
+ * Run with the gc profiler to see the allocation rate of each.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BookReadPathBenchmark {
+
+    // Books written per saveAll call while filling the table
+    private static final int FILL_BATCH = 10_000;
+
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"10000", "100000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+
+    private BookRepository bookRepository;
+
+    private EntityManager entityManager;
+
+    private TransactionTemplate readWrite;
+
+    private TransactionTemplate readOnly;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(BooksApplication.class)
+            .web(WebApplicationType.NONE)
+            .properties(
+                "spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                "spring.main.banner-mode=off",
+                "logging.level.root=WARN")
+            .run();
+        bookRepository = context.getBean(BookRepository.class);
+        entityManager = context.getBean(EntityManager.class);
+
+        final PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        final BookService bookService = context.getBean(BookService.class);
+        final List<Book> batch = new ArrayList<>(FILL_BATCH);
+        for (int i = 0; i < rows; i++) {
+            batch.add(Book.builder().isbn(Isbn.format(isbn(i))).author("Author " + (i % 5000)).title("Title number " + i).build());
+            if (batch.size() == FILL_BATCH) {
+                bookService.saveAll(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            bookService.saveAll(batch);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // Valid ISBN-13s that sort in the order they were generated
+    private static long isbn(final int i) {
+        return Isbn.withCheckDigit(978_000_000_000L + i);
+    }
+
+    private static Book toBook(final BookEntity bookEntity) {
+        return Book.builder()
+            .isbn(Isbn.format(bookEntity.getIsbn()))
+            .author(bookEntity.getAuthor())
+            .title(bookEntity.getTitle())
+            .revision(bookEntity.getRevision())
+            .build();
+    }
+
+    // Every book as managed entities, mapped to Books
+    @Benchmark
+    public List<Book> listAllEntities() {
+        return readWrite.execute(status -> entityManager
+            .createQuery("select b from BookEntity b", BookEntity.class)
+            .getResultList()
+            .stream()
+            .map(BookReadPathBenchmark::toBook)
+            .collect(Collectors.toList()));
+    }
+
+    // Every book projected straight into Books
+    @Benchmark
+    public List<Book> listAllProjected() {
+        return readOnly.execute(status -> bookRepository.findAllBooks());
+    }
+
+    // One page at a random depth of the keyset listing, as managed entities mapped to Books
+    @Benchmark
+    public List<Book> pageEntities() {
+        final long after = isbn(ThreadLocalRandom.current().nextInt(rows));
+        return readWrite.execute(status -> entityManager
+            .createQuery("select b from BookEntity b where b.isbn > :isbn order by b.isbn", BookEntity.class)
+            .setParameter("isbn", after)
+            .setMaxResults(PAGE_SIZE)
+            .getResultList()
+            .stream()
+            .map(BookReadPathBenchmark::toBook)
+            .collect(Collectors.toList()));
+    }
+
+    // One page at a random depth of the keyset listing, projected straight into Books
+    @Benchmark
+    public List<Book> pageProjected() {
+        final long after = isbn(ThreadLocalRandom.current().nextInt(rows));
+        return readOnly.execute(status -> bookRepository.findBooksByIsbnGreaterThan(after, PAGE_SIZE));
+    }
+
+}
@@ -0,0 +1,71 @@
+package com.example.books.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.books.domain.Book;
+import com.example.books.domain.Isbn;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Benchmarks of Jackson writing lists of books, as the list endpoint does.
+ * The output is discarded so only encoding is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BookSerializationBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    private List<Book> books;
+
+    private ObjectWriter writer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        books = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            books.add(Book.builder()
+                .isbn(Isbn.format(Isbn.withCheckDigit(978_000_000_000L + i)))
+                .author("Author " + (i % 5000))
+                .title("Title number " + i)
+                .build());
+        }
+        writer = new ObjectMapper().writerFor(new ObjectMapper().getTypeFactory().constructCollectionType(List.class, Book.class));
+    }
+
+    // Serialize the list to a stream, as Spring MVC writes the response body
+    @Benchmark
+    public void writeList() throws IOException {
+        writer.writeValue(OutputStream.nullOutputStream(), books);
+    }
+
+    // Serialize the list to a byte array, including the copy of the buffered output
+    @Benchmark
+    public byte[] writeListAsBytes() throws IOException {
+        return writer.writeValueAsBytes(books);
+    }
+
+}
@@ -0,0 +1,115 @@
+package com.example.books.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.books.BooksApplication;
+import com.example.books.domain.Book;
+import com.example.books.domain.BookPage;
+import com.example.books.domain.Isbn;
+import com.example.books.services.BookService;
+
+/**
+ * Benchmarks of the BookServiceImpl read paths against an in-memory H2 books table.
+ *
+ * Each trial starts the application without the web layer, fills the table with the given number of rows
+ * and then measures the full listing, a page of the keyset listing, the streaming export and lookups by ISBN,
+ * all of which read Books straight from the result set. Run with the gc profiler to see the allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BookServiceBenchmark {
+
+    // Books written per saveAll call while filling the table
+    private static final int FILL_BATCH = 10_000;
+
+    @Param({"1000", "100000", "1000000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+
+    private BookService bookService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(BooksApplication.class)
+            .web(WebApplicationType.NONE)
+            .properties(
+                "spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                "spring.main.banner-mode=off",
+                "logging.level.root=WARN")
+            .run();
+        bookService = context.getBean(BookService.class);
+
+        final List<Book> batch = new ArrayList<>(FILL_BATCH);
+        for (int i = 0; i < rows; i++) {
+            batch.add(Book.builder().isbn(Isbn.format(isbn(i))).author("Author " + (i % 5000)).title("Title number " + i).build());
+            if (batch.size() == FILL_BATCH) {
+                bookService.saveAll(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            bookService.saveAll(batch);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // Valid ISBN-13s that sort in the order they were generated
+    private static long isbn(final int i) {
+        return Isbn.withCheckDigit(978_000_000_000L + i);
+    }
+
+    // Every book projected into one list
+    @Benchmark
+    public List<Book> listAllBooks() {
+        return bookService.listBooks();
+    }
+
+    // One page of 100 books at a random depth of the keyset listing
+    @Benchmark
+    public BookPage listPage() {
+        return bookService.listBooks(isbn(ThreadLocalRandom.current().nextInt(rows)), 100);
+    }
+
+    // Streaming every book through the export path
+    @Benchmark
+    public void exportBooks(final Blackhole blackhole) {
+        bookService.exportBooks(blackhole::consume);
+    }
+
+    // Lookup of a random existing ISBN, served by the cache once it is warm
+    @Benchmark
+    public Object findById() {
+        return bookService.findById(isbn(ThreadLocalRandom.current().nextInt(rows)));
+    }
+
+}
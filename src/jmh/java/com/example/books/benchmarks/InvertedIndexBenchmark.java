@@ -0,0 +1,74 @@
+package com.example.books.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.books.domain.Book;
+import com.example.books.domain.Isbn;
+import com.example.books.search.InvertedIndex;
+
+/**
+ * Benchmarks of searching the in-memory index behind GET /books/search.
+ *
+ * Every title contains "novel", so a query on it matches every book; a query adding a rarer term has to
+ * merge that posting list with the full one and rank the union. A tenth of the books are removed after
+ * indexing, so searches also skip deleted ids. Run with the gc profiler to see what a search allocates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class InvertedIndexBenchmark {
+
+    private static final String[] WORDS = {
+        "garden", "river", "winter", "shadow", "island", "letters", "journey", "silence",
+        "empire", "harvest", "stranger", "mirror", "orchard", "tide", "lantern", "frontier"
+    };
+
+    @Param({"1000000"})
+    private int books;
+
+    @Param({"novel", "novel garden", "garden winter author"})
+    private String query;
+
+    @Param({"10"})
+    private int limit;
+
+    private InvertedIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        index = new InvertedIndex();
+        for (int i = 0; i < books; i++) {
+            index.put(Book.builder()
+                .isbn(Isbn.format(Isbn.withCheckDigit(978_000_000_000L + i)))
+                .author("Author " + (i % 5000))
+                .title(WORDS[i % WORDS.length] + " " + WORDS[(i / WORDS.length) % WORDS.length] + " novel " + i)
+                .build());
+        }
+        for (int i = 0; i < books; i += 10) {
+            index.remove(Isbn.withCheckDigit(978_000_000_000L + i));
+        }
+    }
+
+    @Benchmark
+    public List<Book> search() {
+        return index.search(query, limit);
+    }
+
+}
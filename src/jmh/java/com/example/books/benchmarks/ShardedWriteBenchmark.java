@@ -0,0 +1,110 @@
+package com.example.books.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.books.BooksApplication;
+import com.example.books.domain.Book;
+import com.example.books.domain.BookSaveResult;
+import com.example.books.domain.Isbn;
+import com.example.books.services.BookService;
+
+/**
+ * Write throughput of bulk saves against one or more shards.
+ *
+ * Each trial starts the application without the web layer over the given number of in-memory H2 shards
+ * and measures saveAll of batches of new books, which every shard commits in a transaction of its own,
+ * all shards at the same time, either from one writer or from several writing at once. The scores are per book,
+ * so they can be compared across shard counts; the gain depends on the number of cores available to the shards.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ShardedWriteBenchmark {
+
+    private static final int BATCH = 1000;
+
+    // Writers saving batches at the same time in the concurrent variant
+    private static final int WRITERS = 8;
+
+    @Param({"1", "2", "4"})
+    private int shards;
+
+    private ConfigurableApplicationContext context;
+
+    private BookService bookService;
+
+    // Next ISBN to write, so every batch inserts new rows; shared by the writers
+    private final AtomicLong next = new AtomicLong(978_000_000_000L);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final String database = "benchmark-" + UUID.randomUUID();
+        context = new SpringApplicationBuilder(BooksApplication.class)
+            .web(WebApplicationType.NONE)
+            .properties(
+                "spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1",
+                "books.shards.count=" + shards,
+                "books.shards.url=jdbc:h2:mem:" + database + "-{shard};DB_CLOSE_DELAY=-1",
+                "spring.main.banner-mode=off",
+                "logging.level.root=WARN")
+            .run();
+        bookService = context.getBean(BookService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // One bulk save of new books
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<BookSaveResult> saveAll() {
+        return bookService.saveAll(newBatch());
+    }
+
+    // One bulk save of new books by each of several writers at once
+    @Benchmark
+    @Threads(WRITERS)
+    @OperationsPerInvocation(BATCH)
+    public List<BookSaveResult> saveAllConcurrently() {
+        return bookService.saveAll(newBatch());
+    }
+
+    private List<Book> newBatch() {
+        final long first = next.getAndAdd(BATCH);
+        final List<Book> batch = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            final long isbn = Isbn.withCheckDigit(first + i);
+            batch.add(Book.builder().isbn(Isbn.format(isbn)).author("Author " + (isbn % 5000)).title("Title number " + isbn).build());
+        }
+        return batch;
+    }
+
+}
@@ -0,0 +1,279 @@
+package com.example.books.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.books.BooksApplication;
+import com.example.books.domain.Book;
+import com.example.books.domain.Isbn;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * End-to-end load harness for the BookController endpoints.
+ *
+ * Starts the application on a random port against a local H2 database, fills it with books and then
+ * sends a mix of PUT, GET by ISBN, list and DELETE requests at a constant arrival rate. Requests are
+ * scheduled open-loop: each one has an intended start time fixed by the rate, and its latency is
+ * measured from that time, so a slow response delays the measurement of the requests queued behind it
+ * instead of hiding them (no coordinated omission).
+ *
+ * Latencies go into one high-dynamic-range histogram per operation. The report with p50, p99, p99.9,
+ * max and achieved throughput is written as JSON so it can be compared between builds.
+ *
+ * Options are passed as key=value arguments:
+ * rate (requests per second, default 1000), duration and warmup (seconds, default 30 and 10),
+ * books (rows loaded before the run, default 10000), mix (default put=10,get=70,list=15,delete=5),
+ * datasource (JDBC URL, default a file database under target) and report (default target/load-report.json).
+ */
+public class LoadHarness {
+
+    // Highest latency the histograms can record, in microseconds
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private static final int LOAD_BATCH = 5_000;
+
+    private final HttpClient client;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final String baseUrl;
+
+    private final int books;
+
+    private final Map<String, Integer> mix;
+
+    private final Map<String, Histogram> histograms = new LinkedHashMap<>();
+
+    private final Map<String, AtomicLong> errors = new HashMap<>();
+
+    public LoadHarness(final String baseUrl, final int books, final Map<String, Integer> mix, final ExecutorService executor) {
+        this.baseUrl = baseUrl;
+        this.books = books;
+        this.mix = mix;
+        this.client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(executor)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+        mix.keySet().forEach(operation -> {
+            histograms.put(operation, new ConcurrentHistogram(MAX_LATENCY_MICROS, 3));
+            errors.put(operation, new AtomicLong());
+        });
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final Map<String, String> options = new HashMap<>();
+        for (final String arg : args) {
+            final int separator = arg.indexOf('=');
+            if (separator > 0) {
+                options.put(arg.substring(0, separator), arg.substring(separator + 1));
+            }
+        }
+
+        final int rate = Integer.parseInt(options.getOrDefault("rate", "1000"));
+        final int duration = Integer.parseInt(options.getOrDefault("duration", "30"));
+        final int warmup = Integer.parseInt(options.getOrDefault("warmup", "10"));
+        final int books = Integer.parseInt(options.getOrDefault("books", "10000"));
+        final Map<String, Integer> mix = parseMix(options.getOrDefault("mix", "put=10,get=70,list=15,delete=5"));
+        final String datasource = options.getOrDefault("datasource", "jdbc:h2:file:./target/load-test-db");
+        final File report = new File(options.getOrDefault("report", "target/load-report.json"));
+
+        final ConfigurableApplicationContext context = new SpringApplicationBuilder(BooksApplication.class)
+            .properties(
+                "server.port=0",
+                "spring.datasource.url=" + datasource,
+                "spring.jpa.hibernate.ddl-auto=create",
+                "spring.main.banner-mode=off",
+                "logging.level.root=WARN")
+            .run();
+
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors()));
+        try {
+            final int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            final LoadHarness harness = new LoadHarness("http://localhost:" + port, books, mix, executor);
+
+            harness.load();
+            harness.run(rate, warmup);
+            harness.reset();
+            final long startNanos = System.nanoTime();
+            final long sent = harness.run(rate, duration);
+            final double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+
+            harness.writeReport(report, rate, sent, elapsedSeconds);
+            System.out.println(harness.objectMapper.writerWithDefaultPrettyPrinter()
+                .writeValueAsString(harness.summary(rate, sent, elapsedSeconds)));
+        } finally {
+            executor.shutdownNow();
+            context.close();
+        }
+    }
+
+    private static Map<String, Integer> parseMix(final String mix) {
+        final Map<String, Integer> weights = new LinkedHashMap<>();
+        for (final String entry : mix.split(",")) {
+            final String[] parts = entry.split("=");
+            weights.put(parts[0].trim(), Integer.parseInt(parts[1].trim()));
+        }
+        return weights;
+    }
+
+    // Valid ISBN-13s that sort in generation order across the key space
+    private static String isbn(final int i) {
+        return Isbn.format(Isbn.withCheckDigit(978_000_000_000L + i));
+    }
+
+    // Fills the database through the bulk endpoint before the run
+    private void load() throws IOException, InterruptedException {
+        for (int from = 0; from < books; from += LOAD_BATCH) {
+            final List<Book> batch = new ArrayList<>(LOAD_BATCH);
+            for (int i = from; i < Math.min(from + LOAD_BATCH, books); i++) {
+                batch.add(book(i));
+            }
+            client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/books"))
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(batch)))
+                .build(), HttpResponse.BodyHandlers.discarding());
+        }
+    }
+
+    private static Book book(final int i) {
+        return Book.builder().isbn(isbn(i)).author("Author " + (i % 5000)).title("Title number " + i).build();
+    }
+
+    private void reset() {
+        histograms.values().forEach(Histogram::reset);
+        errors.values().forEach(count -> count.set(0));
+    }
+
+    /**
+     * Sends requests at a constant rate for the given number of seconds and waits for the last responses.
+     *
+     * @return The number of requests sent.
+     */
+    private long run(final int rate, final int seconds) throws InterruptedException {
+        final long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        final long total = (long) rate * seconds;
+        final AtomicLong pending = new AtomicLong();
+        final long startNanos = System.nanoTime();
+        final int totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+
+        for (long i = 0; i < total; i++) {
+            // The schedule does not depend on how fast responses come back
+            final long intendedNanos = startNanos + i * intervalNanos;
+            long waitNanos;
+            while ((waitNanos = intendedNanos - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(waitNanos);
+            }
+
+            final String operation = pick(totalWeight);
+            pending.incrementAndGet();
+            client.sendAsync(request(operation), HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, failure) -> {
+                    final long latencyMicros = (System.nanoTime() - intendedNanos) / 1000;
+                    histograms.get(operation).recordValue(Math.min(latencyMicros, MAX_LATENCY_MICROS));
+                    if (failure != null || response.statusCode() >= 500) {
+                        errors.get(operation).incrementAndGet();
+                    }
+                    pending.decrementAndGet();
+                });
+        }
+
+        while (pending.get() > 0) {
+            Thread.sleep(10);
+        }
+        return total;
+    }
+
+    private String pick(final int totalWeight) {
+        int value = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (final Map.Entry<String, Integer> entry : mix.entrySet()) {
+            value -= entry.getValue();
+            if (value < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Empty request mix");
+    }
+
+    private HttpRequest request(final String operation) {
+        final int i = ThreadLocalRandom.current().nextInt(books);
+        switch (operation) {
+            case "put":
+                try {
+                    return HttpRequest.newBuilder(URI.create(baseUrl + "/books/" + isbn(i)))
+                        .header("Content-Type", "application/json")
+                        .PUT(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(book(i))))
+                        .build();
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            case "get":
+                return HttpRequest.newBuilder(URI.create(baseUrl + "/books/" + isbn(i))).GET().build();
+            case "list":
+                return HttpRequest.newBuilder(URI.create(baseUrl + "/books?limit=100&after=" + isbn(i))).GET().build();
+            case "delete":
+                return HttpRequest.newBuilder(URI.create(baseUrl + "/books/" + isbn(i))).DELETE().build();
+            default:
+                throw new IllegalArgumentException("Unknown operation " + operation);
+        }
+    }
+
+    private Map<String, Object> summary(final int rate, final long sent, final double elapsedSeconds) {
+        final Map<String, Object> operations = new LinkedHashMap<>();
+        final Histogram all = new Histogram(MAX_LATENCY_MICROS, 3);
+        histograms.forEach((operation, histogram) -> {
+            all.add(histogram);
+            final Map<String, Object> result = latencies(histogram);
+            result.put("errors", errors.get(operation).get());
+            operations.put(operation, result);
+        });
+
+        final Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("targetRate", rate);
+        summary.put("requests", sent);
+        summary.put("elapsedSeconds", elapsedSeconds);
+        summary.put("achievedThroughput", all.getTotalCount() / elapsedSeconds);
+        summary.put("latencyMicros", latencies(all));
+        summary.put("operations", operations);
+        return summary;
+    }
+
+    private static Map<String, Object> latencies(final Histogram histogram) {
+        final Map<String, Object> latencies = new LinkedHashMap<>();
+        latencies.put("count", histogram.getTotalCount());
+        latencies.put("p50", histogram.getValueAtPercentile(50));
+        latencies.put("p99", histogram.getValueAtPercentile(99));
+        latencies.put("p99.9", histogram.getValueAtPercentile(99.9));
+        latencies.put("max", histogram.getMaxValue());
+        return latencies;
+    }
+
+    private void writeReport(final File report, final int rate, final long sent, final double elapsedSeconds) throws IOException {
+        report.getAbsoluteFile().getParentFile().mkdirs();
+        objectMapper.copy().enable(SerializationFeature.INDENT_OUTPUT).writeValue(report, summary(rate, sent, elapsedSeconds));
+    }
+
+}
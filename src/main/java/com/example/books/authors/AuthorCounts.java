@@ -0,0 +1,132 @@
+package com.example.books.authors;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import com.example.books.collections.LongIntHashMap;
+import com.example.books.domain.AuthorCount;
+import com.example.books.domain.AuthorPage;
+
+/**
+ * Number of books of every author, maintained as books are written and deleted.
+ *
+ * The author of every counted book is remembered by ISBN, so rewriting or deleting a book, which only
+ * names its ISBN, takes it out of the count of the author it was stored under. Authors are numbered
+ * so the ISBN map holds primitive ints; the number of an author whose last book is gone is reused.
+ *
+ * The counts are kept in a concurrent map sorted by name, so any thread can page through them while
+ * books are applied. Applying books is not thread safe and must be serialized by the caller.
+ * Books without an author are not counted.
+ */
+public final class AuthorCounts {
+
+    // Books per author, by name
+    private final ConcurrentSkipListMap<String, Integer> counts = new ConcurrentSkipListMap<>();
+
+    // Number of the author of every counted book
+    private final LongIntHashMap authorOfBook = new LongIntHashMap();
+
+    private final Map<String, Integer> authorNumbers = new HashMap<>();
+
+    private final List<String> authorNames = new ArrayList<>();
+
+    // Numbers of authors whose last book is gone
+    private final Deque<Integer> freeNumbers = new ArrayDeque<>();
+
+    /**
+     * Counts a book under its author, in place of the author it was counted under before.
+     *
+     * @param isbn The ISBN-13 of the book.
+     * @param author The author of the book, or null if it has none.
+     */
+    public void put(final long isbn, final String author) {
+
+        // A rewrite under the same author leaves the count as it is, without a moment where it is one short
+        final int previous = authorOfBook.getOrDefault(isbn, -1);
+        if (previous >= 0 && authorNames.get(previous).equals(author)) {
+            return;
+        }
+        remove(isbn);
+        if (author == null) {
+            return;
+        }
+        authorOfBook.put(isbn, number(author));
+        counts.merge(author, 1, Integer::sum);
+    }
+
+    /**
+     * Stops counting a book.
+     *
+     * @param isbn The ISBN-13 of the book, which may not be counted.
+     */
+    public void remove(final long isbn) {
+        final int number = authorOfBook.removeOrDefault(isbn, -1);
+        if (number < 0) {
+            return;
+        }
+        final String author = authorNames.get(number);
+        if (counts.computeIfPresent(author, (name, books) -> books == 1 ? null : books - 1) == null) {
+            authorNumbers.remove(author);
+            authorNames.set(number, null);
+            freeNumbers.push(number);
+        }
+    }
+
+    // Number of books of an author, 0 if unknown
+    public int count(final String author) {
+        return counts.getOrDefault(author, 0);
+    }
+
+    // Number of counted books
+    public int books() {
+        return authorOfBook.size();
+    }
+
+    /**
+     * Lists the authors ordered by name, starting after a cursor.
+     *
+     * @param after The author the page starts after, or null for the first page.
+     * @param limit The maximum number of authors of the page.
+     * @return The page, with the cursor of the next page if more authors follow.
+     */
+    public AuthorPage page(final String after, final int limit) {
+        final NavigableMap<String, Integer> following = after == null ? counts : counts.tailMap(after, false);
+
+        final List<AuthorCount> authors = new ArrayList<>(Math.min(limit, 1024));
+        boolean hasMore = false;
+        for (final Map.Entry<String, Integer> entry : following.entrySet()) {
+            if (authors.size() == limit) {
+                hasMore = true;
+                break;
+            }
+            authors.add(new AuthorCount(entry.getKey(), entry.getValue()));
+        }
+
+        final String nextCursor = hasMore ? authors.get(authors.size() - 1).getAuthor() : null;
+        return new AuthorPage(authors, nextCursor);
+    }
+
+    private int number(final String author) {
+        final Integer known = authorNumbers.get(author);
+        if (known != null) {
+            return known;
+        }
+        final int number;
+        if (freeNumbers.isEmpty()) {
+            number = authorNames.size();
+            authorNames.add(author);
+        } else {
+            number = freeNumbers.pop();
+            authorNames.set(number, author);
+        }
+        authorNumbers.put(author, number);
+        return number;
+    }
+
+}
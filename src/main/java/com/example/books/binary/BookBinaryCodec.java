@@ -0,0 +1,322 @@
+package com.example.books.binary;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.example.books.domain.Book;
+import com.example.books.domain.Isbn;
+
+/**
+ * Reference encoder and decoder of the compact binary representation of books, the
+ * application/x-book-binary media type.
+ *
+ * A document starts with the format version and whether it holds one book or a list:
+ *
+ *   document  version (byte, 1), kind (byte, 0 for a book, 1 for a list), then a book or a list
+ *   list      count (varint), then count books
+ *   book      ISBN-13 (8 bytes, big-endian, 0 for none), author (string), title (string)
+ *   string    length + 1 (varint, 0 for null), then the UTF-8 bytes
+ *
+ * Varints are unsigned LEB128: 7 bits per byte, least significant group first, high bit set on every
+ * byte but the last. As in JSON, the revision is not part of the representation. ISBNs are packed as the
+ * number of their ISBN-13, so an ISBN-10 comes back as its ISBN-13.
+ */
+public final class BookBinaryCodec {
+
+    public static final String MEDIA_TYPE_VALUE = "application/x-book-binary";
+
+    static final int FORMAT_VERSION = 1;
+
+    static final int KIND_BOOK = 0;
+
+    static final int KIND_LIST = 1;
+
+    // Longest string accepted by the decoder, well above the 255 characters a stored field can hold
+    private static final int MAX_STRING_BYTES = 1 << 16;
+
+    private static final int BUFFER_SIZE = 1 << 13;
+
+    private BookBinaryCodec() {
+    }
+
+    /**
+     * Writes a document holding one book.
+     *
+     * @param book The book.
+     * @param output The stream to write to, which is flushed but not closed.
+     * @throws IOException If the stream cannot be written.
+     * @throws IllegalArgumentException If the book has an ISBN that is not valid.
+     */
+    public static void writeBook(final Book book, final OutputStream output) throws IOException {
+        final Encoder encoder = new Encoder(output);
+        encoder.writeByte(FORMAT_VERSION);
+        encoder.writeByte(KIND_BOOK);
+        encoder.writeBook(book);
+        encoder.flush();
+    }
+
+    /**
+     * Writes a document holding a list of books.
+     *
+     * @param books The books.
+     * @param output The stream to write to, which is flushed but not closed.
+     * @throws IOException If the stream cannot be written.
+     * @throws IllegalArgumentException If a book has an ISBN that is not valid.
+     */
+    public static void writeBooks(final List<Book> books, final OutputStream output) throws IOException {
+        final Encoder encoder = new Encoder(output);
+        encoder.writeByte(FORMAT_VERSION);
+        encoder.writeByte(KIND_LIST);
+        encoder.writeVarint(books.size());
+        for (final Book book : books) {
+            encoder.writeBook(book);
+        }
+        encoder.flush();
+    }
+
+    /**
+     * Reads a document holding one book.
+     *
+     * @param input The stream to read from.
+     * @return The book.
+     * @throws IOException If the stream cannot be read, or does not hold a book document.
+     */
+    public static Book readBook(final InputStream input) throws IOException {
+        final Decoder decoder = new Decoder(input);
+        decoder.readHeader(KIND_BOOK);
+        return decoder.readBook();
+    }
+
+    /**
+     * Reads a document holding a list of books.
+     *
+     * @param input The stream to read from.
+     * @return The books.
+     * @throws IOException If the stream cannot be read, or does not hold a list document.
+     */
+    public static List<Book> readBooks(final InputStream input) throws IOException {
+        final Decoder decoder = new Decoder(input);
+        decoder.readHeader(KIND_LIST);
+        final int count = decoder.readVarint();
+
+        // The count is not trusted for the allocation, a short document cannot claim a huge list
+        final List<Book> books = new ArrayList<>(Math.min(count, 1024));
+        for (int i = 0; i < count; i++) {
+            books.add(decoder.readBook());
+        }
+        return books;
+    }
+
+    // Encodes into its own buffer, so single bytes are not written through the synchronized methods of the JDK streams
+    private static final class Encoder {
+
+        private final OutputStream output;
+
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+
+        private int position;
+
+        private Encoder(final OutputStream output) {
+            this.output = output;
+        }
+
+        private void writeBook(final Book book) throws IOException {
+            writeLong(book.getIsbn() == null ? 0 : Isbn.parse(book.getIsbn()));
+            writeString(book.getAuthor());
+            writeString(book.getTitle());
+        }
+
+        private void writeByte(final int value) throws IOException {
+            ensure(1);
+            buffer[position++] = (byte) value;
+        }
+
+        private void writeLong(final long value) throws IOException {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[position++] = (byte) (value >>> shift);
+            }
+        }
+
+        private void writeVarint(int value) throws IOException {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        private void writeString(final String text) throws IOException {
+            if (text == null) {
+                writeVarint(0);
+                return;
+            }
+
+            // ASCII text, the common case, is copied char by char without encoding it into a temporary array
+            final int length = text.length();
+            if (isAscii(text) && length <= BUFFER_SIZE - 5) {
+                writeVarint(length + 1);
+                ensure(length);
+                for (int i = 0; i < length; i++) {
+                    buffer[position++] = (byte) text.charAt(i);
+                }
+                return;
+            }
+
+            final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length + 1);
+            writeBytes(bytes);
+        }
+
+        private void writeBytes(final byte[] bytes) throws IOException {
+            if (bytes.length > BUFFER_SIZE) {
+                flushBuffer();
+                output.write(bytes);
+                return;
+            }
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        private static boolean isAscii(final String text) {
+            for (int i = 0; i < text.length(); i++) {
+                if (text.charAt(i) >= 0x80) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Makes room for the given number of bytes, which must not exceed the buffer
+        private void ensure(final int length) throws IOException {
+            if (position + length > BUFFER_SIZE) {
+                flushBuffer();
+            }
+        }
+
+        private void flushBuffer() throws IOException {
+            output.write(buffer, 0, position);
+            position = 0;
+        }
+
+        private void flush() throws IOException {
+            flushBuffer();
+            output.flush();
+        }
+    }
+
+    // Decodes from its own buffer, refilled from the stream as it empties
+    private static final class Decoder {
+
+        private final InputStream input;
+
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+
+        private int position;
+
+        private int limit;
+
+        private Decoder(final InputStream input) {
+            this.input = input;
+        }
+
+        private void readHeader(final int expectedKind) throws IOException {
+            final int version = readByte();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported book document version " + version);
+            }
+            final int kind = readByte();
+            if (kind != expectedKind) {
+                throw new IOException("Expected a book document of kind " + expectedKind + " but found " + kind);
+            }
+        }
+
+        private Book readBook() throws IOException {
+            final long isbn = readLong();
+            return Book.builder()
+                .isbn(isbn == 0 ? null : Isbn.format(isbn))
+                .author(readString())
+                .title(readString())
+                .build();
+        }
+
+        private int readByte() throws IOException {
+            require(1);
+            return buffer[position++] & 0xFF;
+        }
+
+        private long readLong() throws IOException {
+            require(8);
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (buffer[position++] & 0xFF);
+            }
+            return value;
+        }
+
+        private int readVarint() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                final int b = readByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    if (value < 0) {
+                        throw new IOException("Varint out of range");
+                    }
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        private String readString() throws IOException {
+            final int length = readVarint() - 1;
+            if (length < 0) {
+                return null;
+            }
+            if (length > MAX_STRING_BYTES) {
+                throw new IOException("String of " + length + " bytes is too long");
+            }
+
+            // Decoded straight from the buffer when it fits, which is every string but the very long ones
+            if (length <= BUFFER_SIZE) {
+                require(length);
+                final String text = new String(buffer, position, length, StandardCharsets.UTF_8);
+                position += length;
+                return text;
+            }
+            final byte[] bytes = new byte[length];
+            final int buffered = limit - position;
+            System.arraycopy(buffer, position, bytes, 0, buffered);
+            position = limit;
+            if (input.readNBytes(bytes, buffered, length - buffered) != length - buffered) {
+                throw new IOException("Truncated book document");
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        // Makes sure the given number of bytes, at most the buffer size, is buffered
+        private void require(final int length) throws IOException {
+            if (limit - position >= length) {
+                return;
+            }
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+            while (limit < length) {
+                final int read = input.read(buffer, limit, BUFFER_SIZE - limit);
+                if (read < 0) {
+                    throw new IOException("Truncated book document");
+                }
+                limit += read;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,21 @@
+package com.example.books.binary;
+
+import java.util.List;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Registers the binary representation of books after the default converters, so JSON stays the
+ * representation of requests that do not ask for application/x-book-binary.
+ */
+@Configuration
+public class BookBinaryConfiguration implements WebMvcConfigurer {
+
+    @Override
+    public void extendMessageConverters(final List<HttpMessageConverter<?>> converters) {
+        converters.add(new BookBinaryHttpMessageConverter());
+    }
+
+}
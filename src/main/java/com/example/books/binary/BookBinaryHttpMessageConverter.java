@@ -0,0 +1,89 @@
+package com.example.books.binary;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import com.example.books.domain.Book;
+
+/**
+ * Reads and writes Book and List of Book bodies in the application/x-book-binary media type,
+ * encoded by BookBinaryCodec.
+ *
+ * Other types, including lists of anything but books, are left to the other converters.
+ */
+public class BookBinaryHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(BookBinaryCodec.MEDIA_TYPE_VALUE);
+
+    public BookBinaryHttpMessageConverter() {
+        super(MEDIA_TYPE);
+    }
+
+    @Override
+    protected boolean supports(final Class<?> clazz) {
+        return Book.class == clazz;
+    }
+
+    // Lists are only known to hold books from their generic type, which canRead and canWrite check first
+    @Override
+    public List<MediaType> getSupportedMediaTypes(final Class<?> clazz) {
+        return supports(clazz) || Collection.class.isAssignableFrom(clazz) ? getSupportedMediaTypes() : List.of();
+    }
+
+    @Override
+    public boolean canRead(final Type type, final Class<?> contextClass, final MediaType mediaType) {
+        return isBookList(type) ? canRead(mediaType) : type instanceof Class<?> clazz && canRead(clazz, mediaType);
+    }
+
+    @Override
+    public boolean canWrite(final Type type, final Class<?> clazz, final MediaType mediaType) {
+        return isBookList(type) ? canWrite(mediaType) : clazz != null && canWrite(clazz, mediaType);
+    }
+
+    @Override
+    public Object read(final Type type, final Class<?> contextClass, final HttpInputMessage inputMessage) throws IOException {
+        try {
+            return isBookList(type) ? BookBinaryCodec.readBooks(inputMessage.getBody()) : BookBinaryCodec.readBook(inputMessage.getBody());
+        } catch (IOException e) {
+            throw new HttpMessageNotReadableException("Malformed " + BookBinaryCodec.MEDIA_TYPE_VALUE + " body: " + e.getMessage(), e, inputMessage);
+        }
+    }
+
+    @Override
+    protected Object readInternal(final Class<?> clazz, final HttpInputMessage inputMessage) throws IOException {
+        return read(clazz, null, inputMessage);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(final Object body, final Type type, final HttpOutputMessage outputMessage) throws IOException {
+        try {
+            if (body instanceof Book book) {
+                BookBinaryCodec.writeBook(book, outputMessage.getBody());
+            } else {
+                BookBinaryCodec.writeBooks((List<Book>) body, outputMessage.getBody());
+            }
+        } catch (IllegalArgumentException e) {
+            throw new HttpMessageNotWritableException("Cannot encode books: " + e.getMessage(), e);
+        }
+    }
+
+    // Whether the type is a List of Book, or a supertype of it such as Collection of Book
+    private static boolean isBookList(final Type type) {
+        return type instanceof ParameterizedType parameterized
+            && parameterized.getRawType() instanceof Class<?> raw
+            && (raw == List.class || raw == Collection.class)
+            && parameterized.getActualTypeArguments()[0] == Book.class;
+    }
+
+}
@@ -0,0 +1,203 @@
+package com.example.books.cache;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.books.domain.Book;
+import com.example.books.domain.Isbn;
+import com.example.books.events.BookDeletedEvent;
+import com.example.books.events.BookSavedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Read-through cache of books by ISBN.
+ *
+ * Backed by Caffeine, whose W-TinyLFU policy admits and evicts entries by access frequency,
+ * so a scan of cold ISBNs does not push the hot titles out. Entries expire after a fixed time
+ * and are invalidated whenever the book is saved or deleted.
+ * Hit, miss and eviction counters are published as the "books" cache metrics.
+ * Cached books are shared between callers and must not be modified.
+ *
+ * Concurrent misses on the same ISBN are coalesced: the first caller loads the book and the others
+ * wait for its result instead of querying the database themselves. Loads run outside Caffeine's
+ * locks, so a slow query does not hold up other keys or the invalidation of a write. A load that
+ * overlaps a write may have read the old version; it is then handed to its callers but not cached.
+ * Coalesced calls are counted in books.cache.coalesced.
+ */
+@Component
+public class BookCache {
+
+    // Name under which the cache statistics are published
+    public static final String CACHE_NAME = "books";
+
+    // Order of the invalidation listeners; caches that load through this one invalidate after it
+    public static final int INVALIDATION_ORDER = 0;
+
+    private final Cache<Long, Book> cache;
+
+    // Loads in progress by ISBN, shared by every caller that misses while the load runs
+    private final ConcurrentMap<Long, CompletableFuture<Optional<Book>>> inFlight = new ConcurrentHashMap<>();
+
+    // Bumped by every invalidation, so a load can tell whether a write overlapped it
+    private final AtomicLong invalidations = new AtomicLong();
+
+    // Calls answered by another caller's load
+    private final Counter coalesced;
+
+    @Autowired
+    public BookCache(
+        @Value("${books.cache.maximum-size:10000}") final long maximumSize,
+        @Value("${books.cache.expire-after-write:10m}") final Duration expireAfterWrite,
+        final MeterRegistry meterRegistry) {
+
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(expireAfterWrite)
+            .recordStats()
+            .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+
+        this.coalesced = Counter.builder("books.cache.coalesced")
+            .description("Cache misses that waited for a load of the same ISBN already in progress")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached book, loading it on a miss.
+     * Concurrent misses on the same ISBN share a single load.
+     * Books the loader does not find are not cached.
+     *
+     * @param isbn The ISBN-13 of the book.
+     * @param loader Loads the book from the database when it is not cached.
+     * @return The book, or an empty Optional if it does not exist.
+     */
+    public Optional<Book> get(final long isbn, final LongFunction<Optional<Book>> loader) {
+
+        final Book cachedBook = cache.getIfPresent(isbn);
+        if (cachedBook != null) {
+            return Optional.of(cachedBook);
+        }
+
+        // Join the load in progress, or become the caller that runs it
+        final CompletableFuture<Optional<Book>> load = new CompletableFuture<>();
+        final CompletableFuture<Optional<Book>> runningLoad = inFlight.putIfAbsent(isbn, load);
+        if (runningLoad != null) {
+            coalesced.increment();
+            return await(runningLoad);
+        }
+
+        try {
+            final long generation = invalidations.get();
+            final Optional<Book> book = loader.apply(isbn);
+            book.ifPresent(loadedBook -> putUnlessInvalidated(isbn, loadedBook, generation));
+            load.complete(book);
+            return book;
+        } catch (RuntimeException | Error e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(isbn, load);
+        }
+    }
+
+    /**
+     * Returns the cached books among the given ISBNs, loading all the misses with a single call.
+     * Books the loader does not find are not cached and are left out of the result.
+     *
+     * @param isbns The ISBN-13s of the books.
+     * @param loader Loads the books that are not cached from the database, keyed by ISBN.
+     * @return The books found, keyed by ISBN.
+     */
+    public Map<Long, Book> getAll(
+        final Iterable<Long> isbns,
+        final Function<Set<Long>, Map<Long, Book>> loader) {
+
+        final Map<Long, Book> books = new HashMap<>(cache.getAllPresent(isbns));
+
+        final Set<Long> misses = new LinkedHashSet<>();
+        isbns.forEach(isbn -> {
+            if (!books.containsKey(isbn)) {
+                misses.add(isbn);
+            }
+        });
+        if (misses.isEmpty()) {
+            return books;
+        }
+
+        final long generation = invalidations.get();
+        final Map<Long, Book> loadedBooks = loader.apply(misses);
+        loadedBooks.forEach((isbn, book) -> putUnlessInvalidated(isbn, book, generation));
+        books.putAll(loadedBooks);
+        return books;
+    }
+
+    // Caches a loaded book, unless a write was invalidated since the load started.
+    // The check follows the put: an invalidation either comes after the put and removes it,
+    // or bumps the counter before the check and the book is removed here.
+    private void putUnlessInvalidated(final long isbn, final Book book, final long generation) {
+        cache.put(isbn, book);
+        if (invalidations.get() != generation) {
+            cache.invalidate(isbn);
+        }
+    }
+
+    // Drops the book and any load in progress, so callers arriving after the write read the new version
+    private void invalidate(final long isbn) {
+        invalidations.incrementAndGet();
+        inFlight.remove(isbn);
+        cache.invalidate(isbn);
+    }
+
+    // Waits for another caller's load, rethrowing its failure as is
+    private static Optional<Book> await(final CompletableFuture<Optional<Book>> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    // Drops the book once the write is committed, so the next read loads the new version
+    @Order(INVALIDATION_ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookSaved(final BookSavedEvent event) {
+        invalidate(Isbn.parse(event.getBook().getIsbn()));
+    }
+
+    // Drops the book once the delete is committed
+    @Order(INVALIDATION_ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookDeleted(final BookDeletedEvent event) {
+        invalidate(event.getIsbn());
+    }
+
+}
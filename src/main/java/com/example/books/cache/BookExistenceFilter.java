@@ -0,0 +1,163 @@
+package com.example.books.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.books.domain.Isbn;
+import com.example.books.events.BookSavedEvent;
+import com.example.books.repositories.BookRepository;
+import com.example.books.shards.BookShards;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Bloom filter over the ISBNs stored in the books table.
+ *
+ * It answers "this ISBN is certainly not stored" without a database round trip, so lookups of
+ * unknown ISBNs can be rejected early. A positive answer may be false at the configured rate and
+ * always has to be confirmed by the database.
+ *
+ * The filter is built from the table once the application is ready and every saved ISBN is added
+ * to it after commit. Deleted ISBNs cannot be removed from a Bloom filter; they stay as false
+ * positives until the next rebuild, which happens when the number of ISBNs outgrows the capacity
+ * the filter was sized for. Until the first build completes every ISBN is reported as possibly stored.
+ */
+@Component
+public class BookExistenceFilter {
+
+    private final BookRepository bookRepository;
+
+    private final BookShards shards;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final long expectedInsertions;
+
+    private final double falsePositiveRate;
+
+    // Lookups answered without touching the database
+    private final Counter rejections;
+
+    // The filter answering lookups, null until the first build completes
+    private volatile BloomFilter<Long> filter;
+
+    // The filter being rebuilt, which also receives the ISBNs saved during the rebuild
+    private volatile BloomFilter<Long> building;
+
+    // Number of ISBNs the current filter was sized for, and number of ISBNs added to it
+    private volatile long capacity;
+    private final AtomicLong insertions = new AtomicLong();
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    @Autowired
+    public BookExistenceFilter(
+        final BookRepository bookRepository,
+        final BookShards shards,
+        final PlatformTransactionManager transactionManager,
+        @Value("${books.filter.expected-insertions:1000000}") final long expectedInsertions,
+        @Value("${books.filter.false-positive-rate:0.01}") final double falsePositiveRate,
+        final MeterRegistry meterRegistry) {
+
+        this.bookRepository = bookRepository;
+        this.shards = shards;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.rejections = Counter.builder("books.filter.rejections")
+            .description("Lookups of unknown ISBNs answered by the existence filter")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Tells whether a book with the given ISBN may be stored.
+     *
+     * @param isbn The ISBN to look up.
+     * @return false if the book is certainly not stored, true if it may be.
+     */
+    public boolean mightExist(final long isbn) {
+        final BloomFilter<Long> current = filter;
+        if (current == null || current.mightContain(isbn)) {
+            return true;
+        }
+        rejections.increment();
+        return false;
+    }
+
+    // Builds the filter from the books table once the application has started
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        rebuild();
+    }
+
+    // Adds the ISBN once the write is committed
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookSaved(final BookSavedEvent event) {
+        final long isbn = Isbn.parse(event.getBook().getIsbn());
+
+        // Read the filter under construction first: once it is null, the rebuilt filter has been published
+        final BloomFilter<Long> next = building;
+        if (next != null) {
+            next.put(isbn);
+        }
+
+        final BloomFilter<Long> current = filter;
+        if (current != null && current.put(isbn) && insertions.incrementAndGet() > capacity) {
+            // The filter is fuller than it was sized for, so its false positive rate is climbing
+            CompletableFuture.runAsync(this::rebuild);
+        }
+    }
+
+    /**
+     * Rebuilds the filter from the books table, sized for twice the current number of books.
+     * Lookups keep using the previous filter until the new one is complete.
+     */
+    public void rebuild() {
+
+        // Only one rebuild at a time
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            final long books = shards.fanOut(shard -> bookRepository.count()).stream().mapToLong(Long::longValue).sum();
+            final long size = Math.max(expectedInsertions, 2 * books);
+            final BloomFilter<Long> next =
+                BloomFilter.create(Funnels.longFunnel(), size, falsePositiveRate);
+
+            // Publish the new filter to writers before reading the table, so no committed ISBN is missed
+            building = next;
+
+            // Every shard streams its ISBNs into the filter, which takes concurrent insertions
+            shards.fanOut(shard -> transactionTemplate.execute(status -> {
+                try (Stream<Long> isbns = bookRepository.streamAllIsbns()) {
+                    isbns.forEach(next::put);
+                }
+                return null;
+            }));
+
+            capacity = size;
+            insertions.set(next.approximateElementCount());
+            filter = next;
+        } finally {
+            building = null;
+            rebuilding.set(false);
+        }
+    }
+
+}
@@ -0,0 +1,134 @@
+package com.example.books.cache;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.books.domain.Book;
+import com.example.books.domain.Isbn;
+import com.example.books.events.BookDeletedEvent;
+import com.example.books.events.BookSavedEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Cache of the JSON bodies of GET /books/{isbn} by ISBN.
+ *
+ * A hit is written to the response as is, skipping the mapping of the entity and its serialization.
+ * Books are encoded with the application ObjectMapper, so the bytes are the ones Jackson would have
+ * written. The cache is bounded by the total size of the cached documents and entries are invalidated
+ * whenever the book is saved or deleted; an encoding that overlaps a write is returned but not cached,
+ * as in BookCache. Hit, miss and eviction counters are published as the "books.json" cache metrics.
+ *
+ * Misses load through the book service and so through BookCache, which must drop a written book before
+ * this cache does: a miss that starts after this cache's invalidation has to find the new version in
+ * BookCache, or it would encode and keep the old one. The listeners are ordered after BookCache's.
+ */
+@Component
+public class BookJsonCache {
+
+    // Name under which the cache statistics are published
+    public static final String CACHE_NAME = "books.json";
+
+    // Invalidate after BookCache, which misses load through
+    public static final int INVALIDATION_ORDER = BookCache.INVALIDATION_ORDER + 100;
+
+    private final Cache<Long, EncodedBook> cache;
+
+    private final ObjectMapper objectMapper;
+
+    // Bumped by every invalidation, so an encoding can tell whether a write overlapped it
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @Autowired
+    public BookJsonCache(
+        final ObjectMapper objectMapper,
+        @Value("${books.json-cache.maximum-bytes:67108864}") final long maximumBytes,
+        @Value("${books.cache.expire-after-write:10m}") final Duration expireAfterWrite,
+        final MeterRegistry meterRegistry) {
+
+        this.objectMapper = objectMapper;
+        this.cache = Caffeine.newBuilder()
+            .maximumWeight(maximumBytes)
+            .<Long, EncodedBook>weigher((isbn, book) -> book.json().length)
+            .expireAfterWrite(expireAfterWrite)
+            .recordStats()
+            .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Returns the encoded book, loading and encoding it on a miss.
+     * Books the loader does not find are not cached.
+     *
+     * @param isbn The ISBN-13 of the book.
+     * @param loader Loads the book when its encoding is not cached.
+     * @return The encoded book, or an empty Optional if it does not exist.
+     */
+    public Optional<EncodedBook> get(final long isbn, final LongFunction<Optional<Book>> loader) {
+
+        final EncodedBook cachedBook = cache.getIfPresent(isbn);
+        if (cachedBook != null) {
+            return Optional.of(cachedBook);
+        }
+
+        final long generation = invalidations.get();
+        final Optional<EncodedBook> encodedBook = loader.apply(isbn).map(this::encode);
+
+        // Same ordering as BookCache: an invalidation either removes the put or is seen by the check
+        encodedBook.ifPresent(book -> {
+            cache.put(isbn, book);
+            if (invalidations.get() != generation) {
+                cache.invalidate(isbn);
+            }
+        });
+        return encodedBook;
+    }
+
+    /**
+     * Encodes a book without caching it.
+     *
+     * @param book The book.
+     * @return The book with its JSON document.
+     */
+    public EncodedBook encode(final Book book) {
+        try {
+            return new EncodedBook(objectMapper.writeValueAsBytes(book), book.getRevision());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot encode book " + book.getIsbn(), e);
+        }
+    }
+
+    private void invalidate(final long isbn) {
+        invalidations.incrementAndGet();
+        cache.invalidate(isbn);
+    }
+
+    // Drops the encoding once the write is committed, so the next read encodes the new version
+    @Order(INVALIDATION_ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookSaved(final BookSavedEvent event) {
+        invalidate(Isbn.parse(event.getBook().getIsbn()));
+    }
+
+    // Drops the encoding once the delete is committed
+    @Order(INVALIDATION_ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookDeleted(final BookDeletedEvent event) {
+        invalidate(event.getIsbn());
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.example.books.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.books.events.BookDeletedEvent;
+import com.example.books.events.BookSavedEvent;
+import com.example.books.repositories.BookRepository;
+import com.example.books.shards.BookShards;
+
+/**
+ * Source of the versions behind the ETags of the book endpoints.
+ *
+ * Revisions are handed out to every write of a book and stored with it. They come from a counter
+ * seeded with the larger of the highest stored revision and the start time in microseconds, so a
+ * restart never hands out a revision that was already used, even for a book deleted before the restart.
+ *
+ * The catalog version changes whenever a write to the books table has been committed, which makes it
+ * a cheap ETag for the list endpoint. It is prefixed with the start time of this instance, because
+ * the count of committed writes starts over after a restart.
+ */
+@Component
+public class CatalogVersion {
+
+    // Microseconds since the epoch when this instance started
+    private final long epoch;
+
+    private final AtomicLong revisions;
+
+    private final AtomicLong committedWrites = new AtomicLong();
+
+    @Autowired
+    public CatalogVersion(final BookRepository bookRepository, final BookShards shards) {
+        this.epoch = System.currentTimeMillis() * 1000;
+
+        // The highest revision of any shard
+        final long maxRevision = shards.fanOut(shard -> bookRepository.findMaxRevision()).stream()
+            .filter(revision -> revision != null)
+            .mapToLong(Long::longValue)
+            .max()
+            .orElse(epoch);
+        this.revisions = new AtomicLong(Math.max(maxRevision, epoch));
+    }
+
+    // Returns a revision that has not been used by any write before
+    public long nextRevision() {
+        return revisions.incrementAndGet();
+    }
+
+    /**
+     * Returns the current version of the whole catalog.
+     * Read it before reading the books: a write committed in between makes the version stale, never too new.
+     *
+     * @return A value that changes whenever a write to the books table has been committed.
+     */
+    public String catalogVersion() {
+        return epoch + "-" + committedWrites.get();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookSaved(final BookSavedEvent event) {
+        committedWrites.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookDeleted(final BookDeletedEvent event) {
+        committedWrites.incrementAndGet();
+    }
+
+}
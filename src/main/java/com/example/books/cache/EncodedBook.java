@@ -0,0 +1,11 @@
+package com.example.books.cache;
+
+/**
+ * A book already serialized as the UTF-8 JSON body of GET /books/{isbn}.
+ * The bytes are shared between requests and must not be modified.
+ *
+ * @param json The JSON document of the book.
+ * @param revision The revision of the book, sent as its ETag.
+ */
+public record EncodedBook(byte[] json, Long revision) {
+}
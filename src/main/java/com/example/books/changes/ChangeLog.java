@@ -0,0 +1,96 @@
+package com.example.books.changes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import com.example.books.domain.Book;
+import com.example.books.domain.BookChange;
+
+/**
+ * Bounded log of the most recent changes to the catalog, in the order they were appended.
+ *
+ * Every change gets the next sequence number, starting after the one the log was created with.
+ * The log keeps the latest changes in a ring buffer of fixed capacity; once it is full, appending
+ * drops the oldest change. Since sequence numbers have no gaps, the change with a given sequence
+ * number is found by its offset from the newest one, without searching.
+ *
+ * A reader that asks for the changes after a sequence number the log no longer covers is told so,
+ * and has to reload the catalog instead of applying a feed with a hole in it.
+ */
+public class ChangeLog {
+
+    private final BookChange[] ring;
+
+    // Sequence number the log starts after; changes up to it are unknown to the log
+    private final long startSequence;
+
+    // Sequence number of the newest change, or the start sequence while the log is empty
+    private long lastSequence;
+
+    // Number of changes held, at most the capacity
+    private int size;
+
+    public ChangeLog(final long startSequence, final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive, got " + capacity);
+        }
+        this.ring = new BookChange[capacity];
+        this.startSequence = startSequence;
+        this.lastSequence = startSequence;
+    }
+
+    /**
+     * Appends a change under the next sequence number, dropping the oldest change if the log is full.
+     *
+     * @param type Whether the book was saved or deleted.
+     * @param isbn The ISBN of the book.
+     * @param book The book as saved, or null for a deletion.
+     * @return The appended change.
+     */
+    public synchronized BookChange append(final BookChange.Type type, final String isbn, final Book book) {
+        final BookChange change = new BookChange(lastSequence + 1, type, isbn, book);
+        lastSequence = change.getSequence();
+        ring[slot(lastSequence)] = change;
+        size = Math.min(size + 1, ring.length);
+        return change;
+    }
+
+    /**
+     * Returns the oldest changes after the given sequence number.
+     *
+     * @param sequence The sequence number of the last change the reader has seen.
+     * @param limit The maximum number of changes to return.
+     * @return The changes in sequence order, possibly none, or an empty Optional if some of the
+     *         changes after the sequence number are no longer held.
+     */
+    public synchronized Optional<List<BookChange>> since(final long sequence, final int limit) {
+        if (sequence < lastSequence - size) {
+            return Optional.empty();
+        }
+
+        final List<BookChange> changes = new ArrayList<>();
+        for (long next = sequence + 1; next <= lastSequence && changes.size() < limit; next++) {
+            changes.add(ring[slot(next)]);
+        }
+        return Optional.of(changes);
+    }
+
+    // Sequence number of the newest change, or the start sequence while the log is empty
+    public synchronized long lastSequence() {
+        return lastSequence;
+    }
+
+    public long startSequence() {
+        return startSequence;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private int slot(final long sequence) {
+        return (int) Math.floorMod(sequence, (long) ring.length);
+    }
+
+}
@@ -0,0 +1,79 @@
+package com.example.books.collections;
+
+/**
+ * Set of longs stored in a primitive array, placed by open addressing with linear probing.
+ * The value 0 marks empty slots and is kept aside. Elements cannot be removed.
+ *
+ * Not thread safe.
+ */
+public final class LongHashSet {
+
+    // The table is resized once it is this full
+    private static final double LOAD_FACTOR = 0.5;
+
+    private long[] elements = new long[16];
+
+    private int mask = elements.length - 1;
+
+    // Number of elements in the table, not counting 0
+    private int assigned;
+
+    private boolean hasZero;
+
+    /**
+     * Adds an element.
+     *
+     * @param element The element.
+     * @return Whether the element was not in the set yet.
+     */
+    public boolean add(final long element) {
+        if (element == 0) {
+            final boolean added = !hasZero;
+            hasZero = true;
+            return added;
+        }
+        int slot = LongHashing.mix(element) & mask;
+        for (; elements[slot] != 0; slot = (slot + 1) & mask) {
+            if (elements[slot] == element) {
+                return false;
+            }
+        }
+        elements[slot] = element;
+        if (++assigned > elements.length * LOAD_FACTOR) {
+            rehash(elements.length * 2);
+        }
+        return true;
+    }
+
+    public boolean contains(final long element) {
+        if (element == 0) {
+            return hasZero;
+        }
+        for (int slot = LongHashing.mix(element) & mask; elements[slot] != 0; slot = (slot + 1) & mask) {
+            if (elements[slot] == element) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        return assigned + (hasZero ? 1 : 0);
+    }
+
+    private void rehash(final int capacity) {
+        final long[] oldElements = elements;
+        elements = new long[capacity];
+        mask = capacity - 1;
+        for (final long element : oldElements) {
+            if (element != 0) {
+                int slot = LongHashing.mix(element) & mask;
+                while (elements[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                elements[slot] = element;
+            }
+        }
+    }
+
+}
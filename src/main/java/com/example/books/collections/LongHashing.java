@@ -0,0 +1,18 @@
+package com.example.books.collections;
+
+/**
+ * Spreads long keys over hash table slots.
+ */
+final class LongHashing {
+
+    private LongHashing() {
+    }
+
+    // Multiplies by the golden ratio and folds the high bits in, so keys that differ
+    // only in their low digits, like consecutive ISBNs, land far apart
+    static int mix(final long key) {
+        final long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+}
@@ -0,0 +1,158 @@
+package com.example.books.collections;
+
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Hash map from long keys to int values, stored in two primitive arrays.
+ *
+ * Entries are placed by open addressing with linear probing, so a lookup hashes the key once and
+ * scans adjacent slots without following references or boxing. The key 0 marks empty slots and is
+ * kept aside. Removal shifts the following entries of the probe sequence back instead of leaving
+ * tombstones, so lookups never slow down after many removals.
+ *
+ * Not thread safe.
+ */
+public final class LongIntHashMap {
+
+    // Tables are resized once they are this full
+    private static final double LOAD_FACTOR = 0.5;
+
+    private long[] keys;
+
+    private int[] values;
+
+    private int mask;
+
+    // Number of entries in the tables, not counting the key 0
+    private int assigned;
+
+    private boolean hasZeroKey;
+
+    private int zeroValue;
+
+    public LongIntHashMap() {
+        allocate(16);
+    }
+
+    /**
+     * Returns the value of a key.
+     *
+     * @param key The key.
+     * @param defaultValue The value to return if the key is absent.
+     * @return The value of the key, or the default value.
+     */
+    public int getOrDefault(final long key, final int defaultValue) {
+        if (key == 0) {
+            return hasZeroKey ? zeroValue : defaultValue;
+        }
+        for (int slot = slot(key); keys[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+        }
+        return defaultValue;
+    }
+
+    // Sets the value of a key, replacing the previous one
+    public void put(final long key, final int value) {
+        if (key == 0) {
+            hasZeroKey = true;
+            zeroValue = value;
+            return;
+        }
+        int slot = slot(key);
+        for (; keys[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++assigned > keys.length * LOAD_FACTOR) {
+            rehash(keys.length * 2);
+        }
+    }
+
+    /**
+     * Removes a key.
+     *
+     * @param key The key.
+     * @param defaultValue The value to return if the key is absent.
+     * @return The value the key had, or the default value.
+     */
+    public int removeOrDefault(final long key, final int defaultValue) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                return defaultValue;
+            }
+            hasZeroKey = false;
+            return zeroValue;
+        }
+        for (int slot = slot(key); keys[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                final int value = values[slot];
+                shiftBack(slot);
+                assigned--;
+                return value;
+            }
+        }
+        return defaultValue;
+    }
+
+    public int size() {
+        return assigned + (hasZeroKey ? 1 : 0);
+    }
+
+    // Replaces every value with the result of the operator applied to it
+    public void replaceAll(final IntUnaryOperator operator) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != 0) {
+                values[slot] = operator.applyAsInt(values[slot]);
+            }
+        }
+        if (hasZeroKey) {
+            zeroValue = operator.applyAsInt(zeroValue);
+        }
+    }
+
+    // Empties the slot and moves back the entries after it that may no longer be found past the gap
+    private void shiftBack(int gap) {
+        for (int slot = (gap + 1) & mask; keys[slot] != 0; slot = (slot + 1) & mask) {
+            final int home = slot(keys[slot]);
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                keys[gap] = keys[slot];
+                values[gap] = values[slot];
+                gap = slot;
+            }
+        }
+        keys[gap] = 0;
+    }
+
+    private void rehash(final int capacity) {
+        final long[] oldKeys = keys;
+        final int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = slot(oldKeys[i]);
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(final int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    private int slot(final long key) {
+        return LongHashing.mix(key) & mask;
+    }
+
+}
@@ -0,0 +1,116 @@
+package com.example.books.controllers;
+
+import java.util.List;
+import java.util.OptionalLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import com.example.books.domain.AuthorCount;
+import com.example.books.domain.AuthorPage;
+import com.example.books.domain.Book;
+import com.example.books.domain.BookPage;
+import com.example.books.domain.Isbn;
+import com.example.books.services.AuthorService;
+import com.example.books.services.BookService;
+
+@RestController
+public class AuthorController {
+
+    // Upper bound on the page size a client can request
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final AuthorService authorService;
+
+    private final BookService bookService;
+
+    // The services are injected by Spring through the only constructor
+    @Autowired
+    public AuthorController(final AuthorService authorService, final BookService bookService) {
+        this.authorService = authorService;
+        this.bookService = bookService;
+    }
+
+    /**
+     * Handles the HTTP GET request to retrieve a page of authors ordered by name, each with the number of their books.
+     * The counts are kept up to date as books are written, so no books are counted on the request.
+     * When more authors follow, the cursor of the next page is returned in the X-Next-Cursor header
+     * and a Link header with rel="next" points to it.
+     *
+     * @param after The cursor (author) returned with the previous page, or absent for the first page.
+     * @param limit The maximum number of authors to return, capped at 1000.
+     * @return ResponseEntity with the page of authors and HTTP status OK,
+     *         or a ResponseEntity with HTTP status BAD_REQUEST if the limit is not positive.
+     */
+    @GetMapping(path = "/authors")
+    public ResponseEntity<List<AuthorCount>> listAuthors(
+        @RequestParam(name = "after", required = false) final String after,
+        @RequestParam(name = "limit", defaultValue = "100") final int limit){
+
+        if(limit < 1) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        final int pageSize = Math.min(limit, MAX_PAGE_SIZE);
+        final AuthorPage page = authorService.listAuthors(after, pageSize);
+
+        return withNextPage(page.getAuthors(), page.getNextCursor(), pageSize);
+    }
+
+    /**
+     * Handles the HTTP GET request to retrieve a page of the books of an author, ordered by ISBN.
+     * The author must match exactly. When more books follow, the cursor of the next page is returned
+     * in the X-Next-Cursor header and a Link header with rel="next" points to it.
+     *
+     * @param author The author of the books.
+     * @param after The cursor (ISBN) returned with the previous page, or absent for the first page.
+     * @param limit The maximum number of books to return, capped at 1000.
+     * @return ResponseEntity with the page of books and HTTP status OK, empty if the author has no books,
+     *         or a ResponseEntity with HTTP status BAD_REQUEST if the limit is not positive or the cursor is not an ISBN.
+     */
+    @GetMapping(path = "/authors/{author}/books")
+    public ResponseEntity<List<Book>> listBooksByAuthor(
+        @PathVariable final String author,
+        @RequestParam(name = "after", required = false) final String after,
+        @RequestParam(name = "limit", defaultValue = "100") final int limit){
+
+        final OptionalLong cursor = after == null ? OptionalLong.empty() : Isbn.tryParse(after);
+        if(limit < 1 || (after != null && cursor.isEmpty())) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        final int pageSize = Math.min(limit, MAX_PAGE_SIZE);
+        final BookPage page = bookService.listBooksByAuthor(author, cursor.isPresent() ? cursor.getAsLong() : null, pageSize);
+
+        return withNextPage(page.getBooks(), page.getNextCursor(), pageSize);
+    }
+
+    // Answers with the page, adding the cursor and the link of the next page if there is one
+    private static <T> ResponseEntity<List<T>> withNextPage(final List<T> items, final String nextCursor, final int pageSize) {
+
+        // No cursor means this was the last page
+        if(nextCursor == null) {
+            return new ResponseEntity<List<T>>(items, HttpStatus.OK);
+        }
+
+        final String nextLink = ServletUriComponentsBuilder.fromCurrentRequest()
+            .replaceQueryParam("after", nextCursor)
+            .replaceQueryParam("limit", pageSize)
+            .build()
+            .encode()
+            .toUriString();
+
+        return ResponseEntity.ok()
+            .header(BookController.NEXT_CURSOR_HEADER, nextCursor)
+            .header(HttpHeaders.LINK, "<" + nextLink + ">; rel=\"next\"")
+            .body(items);
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.example.books.controllers;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.books.domain.BookChange;
+import com.example.books.services.BookChangeService;
+
+@RestController
+public class BookChangeController {
+
+    // Upper bound on the number of changes a client can request at once
+    private static final int MAX_CHANGES = 10000;
+
+    // Request header with which a reconnecting event stream client reports the last event it received
+    private static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+
+    private final BookChangeService bookChangeService;
+
+    // The BookChangeService is injected by Spring through the only constructor
+    @Autowired
+    public BookChangeController(final BookChangeService bookChangeService) {
+        this.bookChangeService = bookChangeService;
+    }
+
+    /**
+     * Handles the HTTP GET request to retrieve the changes to the catalog after a sequence number.
+     * Saves carry the book as saved and deletions are tombstones carrying only the ISBN.
+     * The X-Next-Cursor header holds the sequence number to pass as since on the next call; without
+     * since no change is returned, only the cursor of the latest change, from which to follow the feed
+     * after loading the catalog.
+     *
+     * @param since The sequence number of the last change the client has applied.
+     * @param limit The maximum number of changes to return, capped at 10000.
+     * @return ResponseEntity with the changes in sequence order and HTTP status OK,
+     *         a ResponseEntity with HTTP status BAD_REQUEST if the limit is not positive,
+     *         or a ResponseEntity with HTTP status GONE if changes after since are no longer retained
+     *         and the catalog has to be loaded again.
+     */
+    @GetMapping(path = "/books/changes")
+    public ResponseEntity<List<BookChange>> listChanges(
+        @RequestParam(name = "since", required = false) final Long since,
+        @RequestParam(name = "limit", defaultValue = "1000") final int limit){
+
+        if(limit < 1) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        if(since == null) {
+            return ResponseEntity.ok()
+                .header(BookController.NEXT_CURSOR_HEADER, String.valueOf(bookChangeService.latestSequence()))
+                .body(List.of());
+        }
+
+        final Optional<List<BookChange>> changes = bookChangeService.changesSince(since, Math.min(limit, MAX_CHANGES));
+        if(changes.isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.GONE);
+        }
+
+        // The cursor only moves past the changes returned
+        final long nextCursor = changes.get().isEmpty() ? since : changes.get().get(changes.get().size() - 1).getSequence();
+        return ResponseEntity.ok()
+            .header(BookController.NEXT_CURSOR_HEADER, String.valueOf(nextCursor))
+            .body(changes.get());
+    }
+
+    /**
+     * Handles the HTTP GET request to stream the changes to the catalog as server-sent events.
+     * The stream first replays the changes after since, then sends every change as it is committed.
+     * Each event is named saved or deleted and its id is the sequence number of the change; a client
+     * that fell behind the retained changes receives a reset event and has to load the catalog again.
+     *
+     * @param since The sequence number of the last change the client has applied, or absent to start from now.
+     * @param lastEventId The id of the last event received, sent by a reconnecting client instead of since.
+     * @return The event stream.
+     */
+    @GetMapping(path = "/books/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(
+        @RequestParam(name = "since", required = false) final Long since,
+        @RequestHeader(name = LAST_EVENT_ID_HEADER, required = false) final Long lastEventId){
+
+        if(lastEventId != null) {
+            return bookChangeService.subscribe(lastEventId);
+        }
+        return bookChangeService.subscribe(since != null ? since : bookChangeService.latestSequence());
+    }
+
+}
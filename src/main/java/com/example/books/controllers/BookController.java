@@ -1,104 +1,365 @@
 package com.example.books.controllers;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.function.Consumer;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import com.example.books.cache.BookJsonCache;
+import com.example.books.cache.CatalogVersion;
+import com.example.books.cache.EncodedBook;
 import com.example.books.domain.Book;
+import com.example.books.domain.BookLookupResult;
+import com.example.books.domain.BookPage;
+import com.example.books.domain.BookSaveResult;
+import com.example.books.domain.BookSaveStatus;
+import com.example.books.domain.Isbn;
 import com.example.books.services.BookService;
+import com.example.books.services.CatalogSnapshotService;
+import com.example.books.snapshots.CatalogSnapshot;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 @RestController
 public class BookController {
+
+    // Response header carrying the cursor of the next page of books
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    // Upper bound on the page size a client can request from GET /books
+    private static final int MAX_PAGE_SIZE = 1000;
+    
+    // Upper bound on the number of ISBNs a client can look up in one multi-get
+    private static final int MAX_LOOKUP_SIZE = 1000;
+
+    // Media type of the catalog export, one JSON document per line
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
     
     private final BookService bookService;
 
+    private final ObjectMapper objectMapper;
+
+    private final CatalogVersion catalogVersion;
+
+    private final CatalogSnapshotService catalogSnapshotService;
+
+    private final BookJsonCache bookJsonCache;
+
     // Constructor for the BookController class.
     // It is invoked when an instance of BookController is created,
     // and the BookService is automatically injected by Spring using the @Autowired annotation, not required since its the only constructor
     @Autowired
-    public BookController(final BookService bookService) {
+    public BookController(
+        final BookService bookService,
+        final ObjectMapper objectMapper,
+        final CatalogVersion catalogVersion,
+        final CatalogSnapshotService catalogSnapshotService,
+        final BookJsonCache bookJsonCache) {
         this.bookService = bookService;
+        this.objectMapper = objectMapper;
+        this.catalogVersion = catalogVersion;
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.bookJsonCache = bookJsonCache;
     }
 
 
     /**
      * Handles the HTTP PUT request to create or update a book.
+     * ISBNs are accepted in their ISBN-10 or ISBN-13 form, with or without hyphens, and the book is stored
+     * under its ISBN-13.
      *
      * @param isbn The ISBN of the book to be created or updated.
      * @param book The JSON payload containing book information in the request body.
-     * @return ResponseEntity with the created or updated Book and the corresponding HTTP status.
+     * @return ResponseEntity with the created or updated Book and the corresponding HTTP status,
+     *         or a ResponseEntity with HTTP status BAD_REQUEST if the ISBN is not valid.
      */
     @PutMapping(path = "/books/{isbn}")
     public ResponseEntity<Book> createUpdateBook(
         @PathVariable final String isbn, 
         @RequestBody final Book book){
 
-            // Set the ISBN from the path variable to the book object
-            book.setIsbn(isbn);
+            final OptionalLong number = Isbn.tryParse(isbn);
+            if(number.isEmpty()) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
 
-            // Check if the book already exists
-            final boolean isBookExits = bookService.isBookExits(book);
+            // Set the normalized ISBN from the path variable to the book object
+            book.setIsbn(Isbn.format(number.getAsLong()));
 
-            // Save the book using the bookService
-            final Book savedBook = bookService.save(book);
+            // Insert or update the book in one statement, which also tells us whether it existed
+            final BookSaveStatus status = bookService.upsert(book);
 
-            
-            // Return ResponseEntity with HTTP OK if the book exists, otherwise return HTTP CREATED
-            if(isBookExits) {
-                return new ResponseEntity<Book>(savedBook, HttpStatus.OK);
+            // Return ResponseEntity with HTTP OK if the book existed, otherwise return HTTP CREATED
+            if(status == BookSaveStatus.UPDATED) {
+                return new ResponseEntity<Book>(book, HttpStatus.OK);
             } else {
-                return new ResponseEntity<Book>(savedBook, HttpStatus.CREATED);
+                return new ResponseEntity<Book>(book, HttpStatus.CREATED);
             }
-         
-            
 
     }
 
 
+    /**
+     * Handles the HTTP PUT request to create or update many books at once.
+     * The books of each shard are written in a transaction of their own, so with several shards the write is
+     * not atomic: a failing shard leaves the books of the others written. When an ISBN appears more than once
+     * the last one wins.
+     *
+     * @param books The JSON array of books in the request body, each carrying its ISBN.
+     * @return ResponseEntity with the CREATED or UPDATED status of every ISBN-13 and HTTP status OK,
+     *         or a ResponseEntity with HTTP status BAD_REQUEST if a book has no valid ISBN.
+     */
+    @PutMapping(path = "/books")
+    public ResponseEntity<List<BookSaveResult>> createUpdateBooks(@RequestBody final List<Book> books){
+
+        // Every book must say which ISBN it is written to
+        for(final Book book : books) {
+            final OptionalLong number = Isbn.tryParse(book.getIsbn());
+            if(number.isEmpty()) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+            book.setIsbn(Isbn.format(number.getAsLong()));
+        }
+
+        return new ResponseEntity<List<BookSaveResult>>(bookService.saveAll(books), HttpStatus.OK);
+    }
+
+
     /**
      * Handles the HTTP GET request to retrieve a book based on its ISBN.
+     * The response carries the revision of the book as a strong ETag; a request whose If-None-Match
+     * matches it is answered with NOT_MODIFIED and no body.
+     * The JSON body comes ready-encoded from the BookJsonCache and is written to the response as is.
+     * In snapshot serving mode the book is read from the catalog snapshot instead of the database.
      *
      * @param isbn The ISBN of the book to be retrieved.
      * @return ResponseEntity with the retrieved Book and HTTP status OK if found,
-     *         or a ResponseEntity with HTTP status NOT_FOUND if the book is not found.
+     *         a ResponseEntity with HTTP status NOT_FOUND if the book is not found,
+     *         a ResponseEntity with HTTP status BAD_REQUEST if the ISBN is not valid,
+     *         or a ResponseEntity with HTTP status SERVICE_UNAVAILABLE if no snapshot has been loaded yet.
      */
-    @GetMapping(path = "/books/{isbn}")
-    public ResponseEntity<Book> retriveBook(@PathVariable final String isbn){
+    @GetMapping(path = "/books/{isbn}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> retriveBook(@PathVariable final String isbn){
 
-        // Retrieve a book from the service using the provided ISBN
-        final Optional<Book> foundBook = bookService.findById(isbn); 
+        final OptionalLong number = Isbn.tryParse(isbn);
+        if(number.isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
 
-        // If the book is found, return a ResponseEntity with the book and HTTP status OK
+        final Optional<EncodedBook> foundBook;
+        if(catalogSnapshotService.isServing()) {
+            final Optional<CatalogSnapshot> snapshot = catalogSnapshotService.current();
+            if(snapshot.isEmpty()) {
+                return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+            }
+            // Snapshots are swapped without write events, so their books are encoded on every request
+            foundBook = snapshot.get().find(number.getAsLong()).map(bookJsonCache::encode);
+        } else {
+            // Retrieve the encoded book, going to the service using the provided ISBN only on a miss
+            foundBook = bookJsonCache.get(number.getAsLong(), bookService::findById);
+        }
+
+        // If the book is found, return a ResponseEntity with its JSON bytes and HTTP status OK
         // Otherwise, return a ResponseEntity with HTTP status NOT_FOUND
-        return foundBook.map(book -> new ResponseEntity<Book>(book,HttpStatus.OK))
+        // Spring compares the ETag with If-None-Match and skips writing the body when they match
+        return foundBook.map(book -> ResponseEntity.ok()
+                .eTag(String.valueOf(book.revision()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(book.json()))
             .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
 
     }
 
     /**
-     * Handles the HTTP GET request to retrieve a list of all books.
+     * Handles the HTTP GET request to retrieve many books by ISBN at once, as in /books?isbn=a,b,c.
+     * Every requested ISBN gets an entry, in request order, marked FOUND with its book or MISSING.
+     *
+     * @param isbns The comma-separated ISBNs of the books to be retrieved, at most 1000.
+     * @return ResponseEntity with the result for every ISBN and HTTP status OK,
+     *         or a ResponseEntity with HTTP status BAD_REQUEST if an ISBN is not valid,
+     *         or no ISBN or more than 1000 are given.
+     */
+    @GetMapping(path = "/books", params = "isbn")
+    public ResponseEntity<List<BookLookupResult>> retrieveBooks(@RequestParam(name = "isbn") final List<String> isbns){
+        return lookupBooks(isbns);
+    }
+
+    /**
+     * Handles the HTTP POST request to retrieve many books by ISBN at once, for ISBN lists
+     * too long to fit in a URL.
+     * Every requested ISBN gets an entry, in request order, marked FOUND with its book or MISSING.
      *
-     * @return ResponseEntity with the list of books and HTTP status OK if found,
-     *         or a ResponseEntity with HTTP status NOT_FOUND if no books are present.
+     * @param isbns The JSON array of the ISBNs of the books to be retrieved, at most 1000.
+     * @return ResponseEntity with the result for every ISBN and HTTP status OK,
+     *         or a ResponseEntity with HTTP status BAD_REQUEST if an ISBN is not valid,
+     *         or no ISBN or more than 1000 are given.
+     */
+    @PostMapping(path = "/books/lookup")
+    public ResponseEntity<List<BookLookupResult>> lookupBooks(@RequestBody final List<String> isbns){
+
+        if(isbns.isEmpty() || isbns.size() > MAX_LOOKUP_SIZE) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        final List<Long> numbers = new ArrayList<>(isbns.size());
+        for(final String isbn : isbns) {
+            final OptionalLong number = Isbn.tryParse(isbn);
+            if(number.isEmpty()) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+            numbers.add(number.getAsLong());
+        }
+
+        return new ResponseEntity<List<BookLookupResult>>(bookService.findAllById(numbers), HttpStatus.OK);
+    }
+
+    /**
+     * Handles the HTTP GET request to retrieve a page of books ordered by ISBN.
+     * When more books follow, the cursor of the next page is returned in the X-Next-Cursor header
+     * and a Link header with rel="next" points to it.
+     * The ETag is the version of the whole catalog, so a request whose If-None-Match matches it
+     * is answered with NOT_MODIFIED before any book is read.
+     * In snapshot serving mode the page is read from the catalog snapshot, whose creation time is the version.
+     *
+     * @param after The cursor (ISBN) returned with the previous page, or absent for the first page.
+     * @param limit The maximum number of books to return, capped at 1000.
+     * @param request The current request, used to evaluate If-None-Match.
+     * @return ResponseEntity with the page of books and HTTP status OK,
+     *         a ResponseEntity with HTTP status BAD_REQUEST if the limit is not positive or the cursor is not an ISBN,
+     *         a ResponseEntity with HTTP status SERVICE_UNAVAILABLE if no snapshot has been loaded yet,
+     *         or null when the response has already been completed as NOT_MODIFIED.
      */
     @GetMapping(path = "/books")
-    public ResponseEntity<List<Book>> listBooks(){
-        return new ResponseEntity<List<Book>>(bookService.listBooks(), HttpStatus.OK);
+    public ResponseEntity<List<Book>> listBooks(
+        @RequestParam(name = "after", required = false) final String after,
+        @RequestParam(name = "limit", defaultValue = "100") final int limit,
+        final WebRequest request){
+
+        final OptionalLong cursor = after == null ? OptionalLong.empty() : Isbn.tryParse(after);
+        if(limit < 1 || (after != null && cursor.isEmpty())) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        final int pageSize = Math.min(limit, MAX_PAGE_SIZE);
+        final Long afterIsbn = cursor.isPresent() ? cursor.getAsLong() : null;
+        final BookPage page;
+        if(catalogSnapshotService.isServing()) {
+            // The snapshot never changes, so its version is exact
+            final Optional<CatalogSnapshot> snapshot = catalogSnapshotService.current();
+            if(snapshot.isEmpty()) {
+                return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+            }
+            if(request.checkNotModified("snapshot-" + snapshot.get().createdAt())) {
+                return null;
+            }
+            page = snapshot.get().page(afterIsbn, pageSize);
+        } else {
+            // Take the version before reading the books, so it is never newer than the page we return.
+            // checkNotModified also adds the ETag header to the response.
+            if(request.checkNotModified(catalogVersion.catalogVersion())) {
+                return null;
+            }
+            page = bookService.listBooks(afterIsbn, pageSize);
+        }
+
+        // No cursor means this was the last page
+        if(page.getNextCursor() == null) {
+            return new ResponseEntity<List<Book>>(page.getBooks(), HttpStatus.OK);
+        }
+
+        final String nextLink = ServletUriComponentsBuilder.fromCurrentRequest()
+            .replaceQueryParam("after", page.getNextCursor())
+            .replaceQueryParam("limit", pageSize)
+            .build()
+            .encode()
+            .toUriString();
+
+        return ResponseEntity.ok()
+            .header(NEXT_CURSOR_HEADER, page.getNextCursor())
+            .header(HttpHeaders.LINK, "<" + nextLink + ">; rel=\"next\"")
+            .body(page.getBooks());
     }
     
 
+    /**
+     * Handles the HTTP GET request to export the whole catalog as newline-delimited JSON.
+     * Books are written to the response as they are read from the database,
+     * so memory use does not depend on the size of the catalog.
+     *
+     * @return ResponseEntity streaming one JSON book per line with HTTP status OK.
+     */
+    @GetMapping(path = "/books/export", produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportBooks(){
+
+        final StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                // Lines are terminated explicitly instead of separating root values with a space
+                generator.setRootValueSeparator(null);
+                bookService.exportBooks(new NdjsonWriter(generator));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))
+            .body(body);
+    }
+
+    // Writes each book as a line of JSON, flushing after the first one so the response starts right away.
+    // Later lines are left to the generator buffer, which is written out whenever it fills up.
+    private static final class NdjsonWriter implements Consumer<Book> {
+
+        private final JsonGenerator generator;
+
+        private boolean flushed;
+
+        private NdjsonWriter(final JsonGenerator generator) {
+            this.generator = generator;
+        }
+
+        @Override
+        public void accept(final Book book) {
+            try {
+                generator.writeObject(book);
+                generator.writeRaw('\n');
+                if (!flushed) {
+                    generator.flush();
+                    flushed = true;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
     @DeleteMapping(path="/books/{isbn}")
     public ResponseEntity deleteBook(@PathVariable final String isbn) {
-        bookService.deleteBookById(isbn);
+        final OptionalLong number = Isbn.tryParse(isbn);
+        if(number.isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        bookService.deleteBookById(number.getAsLong());
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
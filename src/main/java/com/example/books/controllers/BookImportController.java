@@ -0,0 +1,76 @@
+package com.example.books.controllers;
+
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import com.example.books.domain.BookImport;
+import com.example.books.services.BookImportService;
+
+@RestController
+public class BookImportController {
+
+    private final BookImportService bookImportService;
+
+    // The BookImportService is injected by Spring through the only constructor
+    @Autowired
+    public BookImportController(final BookImportService bookImportService) {
+        this.bookImportService = bookImportService;
+    }
+
+    /**
+     * Handles the HTTP POST request to import the books of a CSV or NDJSON file from the import directory.
+     * The import runs in the background; its progress is available at the URI of the Location header.
+     * CSV files hold isbn, author and title per line, NDJSON files one JSON book per line as exported.
+     * Lines that cannot be imported are written to a reject file next to the imported one.
+     *
+     * @param file The name of the file, relative to the import directory, ending with .csv, .ndjson or .jsonl.
+     * @return ResponseEntity with the progress of the import and HTTP status ACCEPTED,
+     *         a ResponseEntity with HTTP status BAD_REQUEST if the name leaves the import directory or has another extension,
+     *         or a ResponseEntity with HTTP status NOT_FOUND if there is no such file to import.
+     */
+    @PostMapping(path = "/books/imports")
+    public ResponseEntity<BookImport> startImport(@RequestParam(name = "file") final String file){
+
+        final Optional<BookImport> started;
+        try {
+            started = bookImportService.start(file);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        if(started.isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+
+        return ResponseEntity.accepted()
+            .location(ServletUriComponentsBuilder.fromCurrentRequestUri()
+                .path("/{id}")
+                .buildAndExpand(started.get().getId())
+                .toUri())
+            .body(started.get());
+    }
+
+    /**
+     * Handles the HTTP GET request to retrieve the progress of an import.
+     * Finished imports are kept for books.import.retention, one hour by default.
+     *
+     * @param id The id of the import, as returned when it was started.
+     * @return ResponseEntity with the progress of the import and HTTP status OK,
+     *         or a ResponseEntity with HTTP status NOT_FOUND if there is no such import.
+     */
+    @GetMapping(path = "/books/imports/{id}")
+    public ResponseEntity<BookImport> retrieveImport(@PathVariable final String id){
+        return bookImportService.findById(id)
+            .map(bookImport -> new ResponseEntity<BookImport>(bookImport, HttpStatus.OK))
+            .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+}
@@ -0,0 +1,76 @@
+package com.example.books.controllers;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.books.domain.Book;
+import com.example.books.domain.Suggestion;
+import com.example.books.services.BookSearchService;
+
+@RestController
+public class BookSearchController {
+
+    // Upper bound on the number of results a client can request
+    private static final int MAX_RESULTS = 100;
+
+    // Upper bound on the number of completions a client can request
+    private static final int MAX_SUGGESTIONS = 50;
+
+    private final BookSearchService bookSearchService;
+
+    // The BookSearchService is injected by Spring through the only constructor
+    @Autowired
+    public BookSearchController(final BookSearchService bookSearchService) {
+        this.bookSearchService = bookSearchService;
+    }
+
+    /**
+     * Handles the HTTP GET request to search books by the words of their title and author.
+     * Matching is case and accent insensitive, and books containing more of the query words rank first.
+     *
+     * @param q The words to search for.
+     * @param limit The maximum number of books to return, capped at 100.
+     * @return ResponseEntity with the matching books and HTTP status OK,
+     *         or a ResponseEntity with HTTP status BAD_REQUEST if the limit is not positive.
+     */
+    @GetMapping(path = "/books/search")
+    public ResponseEntity<List<Book>> searchBooks(
+        @RequestParam(name = "q") final String q,
+        @RequestParam(name = "limit", defaultValue = "20") final int limit){
+
+        if(limit < 1) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        return new ResponseEntity<List<Book>>(bookSearchService.search(q, Math.min(limit, MAX_RESULTS)), HttpStatus.OK);
+    }
+
+    /**
+     * Handles the HTTP GET request to complete what has been typed so far into titles and authors.
+     * Completions come from memory, without querying the database, and those leading to the most books come first.
+     *
+     * @param prefix The beginning of a title or author, matched case and accent insensitively.
+     * @param limit The maximum number of completions to return, capped at 50.
+     * @return ResponseEntity with the completions and HTTP status OK,
+     *         or a ResponseEntity with HTTP status BAD_REQUEST if the limit is not positive.
+     */
+    @GetMapping(path = "/books/suggest")
+    public ResponseEntity<List<Suggestion>> suggestBooks(
+        @RequestParam(name = "prefix") final String prefix,
+        @RequestParam(name = "limit", defaultValue = "10") final int limit){
+
+        if(limit < 1) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        return new ResponseEntity<List<Suggestion>>(
+            bookSearchService.suggest(prefix, Math.min(limit, MAX_SUGGESTIONS)), HttpStatus.OK);
+    }
+
+}
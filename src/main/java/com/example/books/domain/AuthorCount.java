@@ -0,0 +1,21 @@
+package com.example.books.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * An author with the number of books stored under their name.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class AuthorCount {
+
+    private String author;
+
+    private int books;
+
+}
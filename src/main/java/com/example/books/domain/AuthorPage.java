@@ -0,0 +1,24 @@
+package com.example.books.domain;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A single page of authors ordered by name.
+ * The next cursor is the name of the last author in the page, or null when there are no more authors.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class AuthorPage {
+
+    private List<AuthorCount> authors;
+
+    private String nextCursor;
+
+}
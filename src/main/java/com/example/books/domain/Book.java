@@ -1,8 +1,11 @@
 package com.example.books.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 
 @Data
@@ -16,5 +19,10 @@ public class Book {
     private String author;
 
     private String title;
+
+    // Revision of the stored book, sent as its ETag rather than in the JSON body
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    private Long revision;
     
 }
@@ -0,0 +1,33 @@
+package com.example.books.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * An entry of the change feed: a committed save of a book, or a tombstone for a deleted ISBN.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BookChange {
+
+    // Whether the book was saved or deleted
+    public enum Type {
+        SAVED,
+        DELETED
+    }
+
+    // Position of the change in the feed, increasing with every committed write
+    private long sequence;
+
+    private Type type;
+
+    private String isbn;
+
+    // The book as saved, null for a deletion
+    private Book book;
+    
+}
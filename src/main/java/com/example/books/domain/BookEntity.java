@@ -2,10 +2,13 @@ package com.example.books.domain;
 
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.NamedQuery;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 
 @Data
@@ -13,14 +16,33 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @Builder
 @Entity
-@Table(name = "books")
+// The ISBN after the author lets a page of an author's books seek straight to its cursor
+@Table(name = "books", indexes = @Index(name = "books_author_isbn_idx", columnList = "author, isbn"))
+// The read queries of BookRepository, which build each Book straight from the result set.
+// As named queries they are parsed once by Hibernate; Spring Data re-renders @Query strings on every call.
+@NamedQuery(name = "BookEntity.findBookByIsbn", query = BookEntity.SELECT_BOOK + "where b.isbn = :isbn")
+@NamedQuery(name = "BookEntity.findBooksByIsbnIn", query = BookEntity.SELECT_BOOK + "where b.isbn in :isbns")
+@NamedQuery(name = "BookEntity.findAllBooks", query = BookEntity.SELECT_BOOK)
+@NamedQuery(name = "BookEntity.findBooksByIsbnGreaterThan",
+    query = BookEntity.SELECT_BOOK + "where b.isbn > :isbn order by b.isbn limit :limit")
+@NamedQuery(name = "BookEntity.findBooksByAuthorAndIsbnGreaterThan",
+    query = BookEntity.SELECT_BOOK + "where b.author = :author and b.isbn > :isbn order by b.isbn limit :limit")
+@NamedQuery(name = "BookEntity.streamAllBooks", query = BookEntity.SELECT_BOOK + "order by b.isbn")
 public class BookEntity {
 
+    // Constructor expression casting the numeric ISBN to the 13 digits the Book carries
+    static final String SELECT_BOOK = "select new com.example.books.domain.Book(cast(b.isbn as String), b.author, b.title, b.revision) from BookEntity b ";
+
+    // The ISBN-13 as a number, stored as a BIGINT key
     @Id
-    private String isbn;
+    private Long isbn;
 
     private String author;
 
     private String title;
+
+    // Taken from a counter that only grows, so every write of a book gets a revision it never had before
+    @EqualsAndHashCode.Exclude
+    private Long revision;
     
 }
@@ -0,0 +1,45 @@
+package com.example.books.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Progress of a bulk import of books from a file.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BookImport {
+
+    // Whether the import is still running, and how it ended
+    public enum Status {
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    private String id;
+
+    private String file;
+
+    private Status status;
+
+    // Books written to the table so far
+    private long imported;
+
+    // Lines written to the reject file so far
+    private long rejected;
+
+    // Books imported and lines rejected per second since the import started
+    private double rowsPerSecond;
+
+    // File listing the rejected lines with their line number and the reason
+    private String rejectFile;
+
+    // Why the import stopped, when it failed
+    private String error;
+    
+}
@@ -0,0 +1,24 @@
+package com.example.books.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Per-ISBN result of a multi-get, carrying the book when it was found.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BookLookupResult {
+
+    private String isbn;
+
+    private BookLookupStatus status;
+
+    // Null when the status is MISSING
+    private Book book;
+    
+}
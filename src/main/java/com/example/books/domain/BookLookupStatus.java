@@ -0,0 +1,12 @@
+package com.example.books.domain;
+
+/**
+ * Outcome of looking up a single ISBN in a multi-get: whether a book is stored under it.
+ */
+public enum BookLookupStatus {
+
+    FOUND,
+
+    MISSING
+    
+}
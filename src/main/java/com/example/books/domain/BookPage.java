@@ -0,0 +1,24 @@
+package com.example.books.domain;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A single page of books returned by a keyset (seek) query.
+ * The next cursor is the ISBN of the last book in the page, or null when there are no more books.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BookPage {
+
+    private List<Book> books;
+
+    private String nextCursor;
+
+}
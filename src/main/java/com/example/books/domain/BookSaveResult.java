@@ -0,0 +1,21 @@
+package com.example.books.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Per-ISBN result of a bulk write, reporting whether the book was created or updated.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BookSaveResult {
+
+    private String isbn;
+
+    private BookSaveStatus status;
+    
+}
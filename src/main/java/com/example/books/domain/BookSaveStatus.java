@@ -0,0 +1,12 @@
+package com.example.books.domain;
+
+/**
+ * Outcome of writing a single book: whether the ISBN was new or already stored.
+ */
+public enum BookSaveStatus {
+
+    CREATED,
+
+    UPDATED
+    
+}
@@ -0,0 +1,129 @@
+package com.example.books.domain;
+
+import java.util.OptionalLong;
+
+/**
+ * Conversions between the textual forms of an ISBN and the number it is stored as.
+ *
+ * ISBNs are accepted as ISBN-10 or ISBN-13 with the 978 or 979 prefix, with or without hyphens and
+ * spaces, and their check digit is validated. Every ISBN is normalized to its ISBN-13 form, whose 13 digits fit in a long: ISBN-10s
+ * take the 978 prefix and a recomputed check digit. Since every ISBN-13 has 13 digits, the numeric
+ * order of the stored values is the order of their texts.
+ */
+public final class Isbn {
+
+    private static final int ISBN_10_LENGTH = 10;
+
+    private static final int ISBN_13_LENGTH = 13;
+
+    private static final long ISBN_10_PREFIX = 978_000_000_000L;
+
+    private Isbn() {
+    }
+
+    /**
+     * Parses an ISBN-10 or ISBN-13.
+     *
+     * @param text The ISBN, possibly with hyphens or spaces between the digits.
+     * @return The ISBN-13 as a number.
+     * @throws IllegalArgumentException If the text is not a valid ISBN.
+     */
+    public static long parse(final String text) {
+        final OptionalLong isbn = tryParse(text);
+        if (isbn.isEmpty()) {
+            throw new IllegalArgumentException("Invalid ISBN: " + text);
+        }
+        return isbn.getAsLong();
+    }
+
+    /**
+     * Parses an ISBN-10 or ISBN-13.
+     *
+     * @param text The ISBN, possibly with hyphens or spaces between the digits.
+     * @return The ISBN-13 as a number, or empty if the text is not a valid ISBN.
+     */
+    public static OptionalLong tryParse(final String text) {
+        if (text == null) {
+            return OptionalLong.empty();
+        }
+
+        // Collect the digits, allowing X as the last character of an ISBN-10
+        long digits = 0;
+        int length = 0;
+        boolean checkIsTen = false;
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (c >= '0' && c <= '9' && !checkIsTen) {
+                if (++length > ISBN_13_LENGTH) {
+                    return OptionalLong.empty();
+                }
+                digits = digits * 10 + (c - '0');
+            } else if ((c == 'X' || c == 'x') && length == ISBN_10_LENGTH - 1) {
+                checkIsTen = true;
+                length++;
+            } else if (c != '-' && c != ' ' || length == 0) {
+                return OptionalLong.empty();
+            }
+        }
+
+        if (length == ISBN_13_LENGTH) {
+            final long prefix = digits / 10_000_000_000L;
+            return (prefix == 978 || prefix == 979) && digits % 10 == checkDigit13(digits / 10)
+                ? OptionalLong.of(digits) : OptionalLong.empty();
+        }
+        if (length == ISBN_10_LENGTH) {
+            final long body = checkIsTen ? digits : digits / 10;
+            final int check = checkIsTen ? 10 : (int) (digits % 10);
+            return check == checkDigit10(body) ? OptionalLong.of(withCheckDigit(ISBN_10_PREFIX + body)) : OptionalLong.empty();
+        }
+        return OptionalLong.empty();
+    }
+
+    // Parses an ISBN, or returns null if it is not valid; used by the migration of the books table
+    public static Long parseOrNull(final String text) {
+        final OptionalLong isbn = tryParse(text);
+        return isbn.isPresent() ? isbn.getAsLong() : null;
+    }
+
+    /**
+     * Formats a stored ISBN.
+     *
+     * @param isbn The ISBN-13 as a number.
+     * @return The 13 digits of the ISBN, without hyphens.
+     */
+    public static String format(final long isbn) {
+        return Long.toString(isbn);
+    }
+
+    /**
+     * Completes the first 12 digits of an ISBN-13 with its check digit.
+     *
+     * @param first12Digits The ISBN-13 without its check digit.
+     * @return The ISBN-13 as a number.
+     */
+    public static long withCheckDigit(final long first12Digits) {
+        return first12Digits * 10 + checkDigit13(first12Digits);
+    }
+
+    // Digits alternate weights 1 and 3 from the left; the check digit brings the sum to a multiple of 10
+    private static int checkDigit13(long first12Digits) {
+        int sum = 0;
+        for (int position = 12; position >= 1; position--) {
+            final int digit = (int) (first12Digits % 10);
+            sum += position % 2 == 0 ? digit * 3 : digit;
+            first12Digits /= 10;
+        }
+        return (10 - sum % 10) % 10;
+    }
+
+    // Digits are weighted 10 down to 2 from the left; the check digit, X standing for 10, brings the sum to a multiple of 11
+    private static int checkDigit10(long first9Digits) {
+        int sum = 0;
+        for (int weight = 2; weight <= 10; weight++) {
+            sum += (int) (first9Digits % 10) * weight;
+            first9Digits /= 10;
+        }
+        return (11 - sum % 11) % 11;
+    }
+
+}
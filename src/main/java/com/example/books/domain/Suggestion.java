@@ -0,0 +1,29 @@
+package com.example.books.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A completion offered while typing in the search box, with the number of books it leads to.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class Suggestion {
+
+    // Whether the completion is a title or an author
+    public enum Kind {
+        TITLE,
+        AUTHOR
+    }
+
+    private String text;
+
+    private Kind kind;
+
+    private int books;
+    
+}
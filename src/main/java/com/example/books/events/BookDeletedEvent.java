@@ -0,0 +1,16 @@
+package com.example.books.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Published by the book service after a book has been deleted.
+ */
+@Data
+@AllArgsConstructor
+public class BookDeletedEvent {
+
+    // The ISBN-13 of the deleted book
+    private final long isbn;
+
+}
@@ -0,0 +1,18 @@
+package com.example.books.events;
+
+import com.example.books.domain.Book;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Published by the book service after a book has been created or updated.
+ * Listeners use it to keep in-process structures in line with the books table.
+ */
+@Data
+@AllArgsConstructor
+public class BookSavedEvent {
+
+    private final Book book;
+
+}
@@ -0,0 +1,116 @@
+package com.example.books.imports;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.OptionalLong;
+
+import com.example.books.domain.Book;
+import com.example.books.domain.Isbn;
+
+/**
+ * Parses a chunk of an import file line by line, validating every book.
+ *
+ * Lines are decoded as UTF-8 and may end with either LF or CRLF. Blank lines are skipped. A line
+ * that does not parse or describes an invalid book is rejected with the reason, and parsing goes on
+ * with the next line.
+ */
+public final class ChunkParser {
+
+    // Longest value the columns of the books table hold
+    private static final int MAX_FIELD_LENGTH = 255;
+
+    private static final byte[] UTF8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+    private ChunkParser() {
+    }
+
+    /**
+     * Parses a chunk.
+     *
+     * @param chunk The bytes of the chunk, from its position to its limit.
+     * @param parser Parses one line into a book.
+     * @param firstChunk Whether the chunk starts the file, where a byte order mark and a header may appear.
+     * @return The valid books and the rejected lines of the chunk.
+     */
+    public static ParsedChunk parse(final ByteBuffer chunk, final RecordParser parser, final boolean firstChunk) {
+        final ByteBuffer bytes = chunk.duplicate();
+        final List<Book> books = new ArrayList<>();
+        final List<ParsedChunk.Reject> rejects = new ArrayList<>();
+
+        if (firstChunk) {
+            skipBom(bytes);
+        }
+
+        byte[] line = new byte[256];
+        int lineNumber = 0;
+        while (bytes.hasRemaining()) {
+            lineNumber++;
+
+            // Copy the line out of the mapped chunk, growing the buffer for long lines
+            int length = 0;
+            while (bytes.hasRemaining()) {
+                final byte b = bytes.get();
+                if (b == '\n') {
+                    break;
+                }
+                if (length == line.length) {
+                    line = Arrays.copyOf(line, line.length * 2);
+                }
+                line[length++] = b;
+            }
+            if (length > 0 && line[length - 1] == '\r') {
+                length--;
+            }
+
+            final String text = new String(line, 0, length, StandardCharsets.UTF_8);
+            if (text.isBlank() || (firstChunk && lineNumber == 1 && parser.isHeader(text))) {
+                continue;
+            }
+
+            try {
+                books.add(validate(parser.parse(text)));
+            } catch (IllegalArgumentException e) {
+                rejects.add(new ParsedChunk.Reject(lineNumber, e.getMessage(), text));
+            }
+        }
+
+        return new ParsedChunk(books, rejects, lineNumber);
+    }
+
+    // Checks that the book can be stored, normalizing its ISBN to the ISBN-13 it is stored under
+    private static Book validate(final Book book) {
+        if (book == null) {
+            throw new IllegalArgumentException("Not a book");
+        }
+        if (book.getIsbn() == null || book.getIsbn().isBlank()) {
+            throw new IllegalArgumentException("Missing ISBN");
+        }
+        final OptionalLong isbn = Isbn.tryParse(book.getIsbn());
+        if (isbn.isEmpty()) {
+            throw new IllegalArgumentException("Invalid ISBN");
+        }
+        book.setIsbn(Isbn.format(isbn.getAsLong()));
+        checkLength("Author", book.getAuthor());
+        checkLength("Title", book.getTitle());
+        return book;
+    }
+
+    private static void checkLength(final String field, final String value) {
+        if (value != null && value.length() > MAX_FIELD_LENGTH) {
+            throw new IllegalArgumentException(field + " longer than " + MAX_FIELD_LENGTH + " characters");
+        }
+    }
+
+    private static void skipBom(final ByteBuffer bytes) {
+        if (bytes.remaining() >= UTF8_BOM.length
+            && bytes.get(bytes.position()) == UTF8_BOM[0]
+            && bytes.get(bytes.position() + 1) == UTF8_BOM[1]
+            && bytes.get(bytes.position() + 2) == UTF8_BOM[2]) {
+            bytes.position(bytes.position() + UTF8_BOM.length);
+        }
+    }
+
+}
@@ -0,0 +1,85 @@
+package com.example.books.imports;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Splits a file into memory-mapped chunks that end on line boundaries, so each chunk can be parsed
+ * on its own thread. The file is read through the page cache without being copied onto the heap.
+ *
+ * A chunk is at most the configured size, unless a single line is longer, in which case the chunk
+ * grows until it holds the whole line.
+ */
+public class ChunkReader implements Closeable {
+
+    private final FileChannel channel;
+
+    private final long size;
+
+    private final int chunkSize;
+
+    // Offset in the file of the next chunk
+    private long position;
+
+    public ChunkReader(final Path file, final int chunkSize) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Maps the next chunk of the file.
+     *
+     * @return The chunk, ending after a line terminator or at the end of the file, or null once the file is exhausted.
+     * @throws IOException If the file cannot be mapped, or a line does not fit in 2 GB.
+     */
+    public ByteBuffer next() throws IOException {
+        if (position >= size) {
+            return null;
+        }
+
+        long length = Math.min(chunkSize, size - position);
+        while (true) {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+
+            // The last chunk ends with the file, terminated or not
+            if (position + length == size) {
+                position = size;
+                return buffer;
+            }
+
+            final int end = lastLineEnd(buffer);
+            if (end > 0) {
+                position += end;
+                return buffer.limit(end);
+            }
+
+            // Not a single line terminator: map more of the line
+            if (length >= Integer.MAX_VALUE) {
+                throw new IOException("Line at offset " + position + " is longer than " + Integer.MAX_VALUE + " bytes");
+            }
+            length = Math.min(Math.min(length * 2, Integer.MAX_VALUE), size - position);
+        }
+    }
+
+    // Offset just past the last line feed of the buffer, or 0 if there is none
+    private static int lastLineEnd(final ByteBuffer buffer) {
+        for (int i = buffer.limit() - 1; i >= 0; i--) {
+            if (buffer.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+}
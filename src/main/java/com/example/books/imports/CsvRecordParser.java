@@ -0,0 +1,77 @@
+package com.example.books.imports;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.example.books.domain.Book;
+
+/**
+ * Parses lines of comma-separated isbn, author and title.
+ *
+ * Fields may be enclosed in double quotes, with a doubled quote standing for a quote inside the field,
+ * so titles can contain commas. A quoted field cannot span lines, because the file is split between
+ * parsing threads on line boundaries. A first line starting with "isbn" is taken as the header.
+ */
+public class CsvRecordParser implements RecordParser {
+
+    private static final int FIELDS = 3;
+
+    @Override
+    public Book parse(final String line) {
+        final List<String> fields = split(line);
+        if (fields.size() != FIELDS) {
+            throw new IllegalArgumentException("Expected " + FIELDS + " fields, found " + fields.size());
+        }
+        return Book.builder()
+            .isbn(fields.get(0).trim())
+            .author(fields.get(1))
+            .title(fields.get(2))
+            .build();
+    }
+
+    @Override
+    public boolean isHeader(final String line) {
+        return line.regionMatches(true, 0, "isbn", 0, 4);
+    }
+
+    private static List<String> split(final String line) {
+        final List<String> fields = new ArrayList<>(FIELDS);
+        final StringBuilder field = new StringBuilder();
+        int i = 0;
+        while (true) {
+            field.setLength(0);
+            if (i < line.length() && line.charAt(i) == '"') {
+                // Quoted field, up to the quote that is not doubled
+                i++;
+                while (true) {
+                    if (i >= line.length()) {
+                        throw new IllegalArgumentException("Unterminated quoted field");
+                    }
+                    final char c = line.charAt(i++);
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i < line.length() && line.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                if (i < line.length() && line.charAt(i) != ',') {
+                    throw new IllegalArgumentException("Unexpected character after quoted field at column " + (i + 1));
+                }
+            } else {
+                final int end = line.indexOf(',', i);
+                field.append(line, i, end < 0 ? line.length() : end);
+                i = end < 0 ? line.length() : end;
+            }
+            fields.add(field.toString());
+            if (i >= line.length()) {
+                return fields;
+            }
+            // Skip the comma
+            i++;
+        }
+    }
+
+}
@@ -0,0 +1,33 @@
+package com.example.books.imports;
+
+import com.example.books.domain.Book;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * Parses lines holding one JSON book each, as written by the catalog export.
+ */
+public class NdjsonRecordParser implements RecordParser {
+
+    private final ObjectReader reader;
+
+    public NdjsonRecordParser(final ObjectMapper objectMapper) {
+        this.reader = objectMapper.readerFor(Book.class);
+    }
+
+    @Override
+    public Book parse(final String line) {
+        try {
+            return reader.readValue(line);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(e.getOriginalMessage());
+        }
+    }
+
+    @Override
+    public boolean isHeader(final String line) {
+        return false;
+    }
+
+}
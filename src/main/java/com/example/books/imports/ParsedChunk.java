@@ -0,0 +1,26 @@
+package com.example.books.imports;
+
+import java.util.List;
+
+import com.example.books.domain.Book;
+
+/**
+ * The books parsed from one chunk of an import file and the lines that were rejected.
+ *
+ * @param books The valid books, in file order.
+ * @param rejects The rejected lines, in file order.
+ * @param lines Number of lines of the chunk, including the header and blank lines.
+ */
+public record ParsedChunk(List<Book> books, List<Reject> rejects, int lines) {
+
+    /**
+     * A line that could not be imported.
+     *
+     * @param line Number of the line within its chunk, starting at 1.
+     * @param reason Why the line was rejected.
+     * @param text The line as read.
+     */
+    public record Reject(int line, String reason, String text) {
+    }
+
+}
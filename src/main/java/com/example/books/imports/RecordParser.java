@@ -0,0 +1,23 @@
+package com.example.books.imports;
+
+import com.example.books.domain.Book;
+
+/**
+ * Turns one line of an import file into a book.
+ * Implementations are shared by the parsing threads and must be thread safe.
+ */
+public interface RecordParser {
+
+    /**
+     * Parses a line of the file.
+     *
+     * @param line The line, without its line terminator.
+     * @return The book described by the line.
+     * @throws IllegalArgumentException If the line is malformed, with the reason as message.
+     */
+    Book parse(String line);
+
+    // Whether the line names the columns instead of describing a book
+    boolean isHeader(String line);
+
+}
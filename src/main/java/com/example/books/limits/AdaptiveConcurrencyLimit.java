@@ -0,0 +1,122 @@
+package com.example.books.limits;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit that adapts to the latency of the requests it admits, following the gradient
+ * algorithm: the limit is scaled by the ratio of the long-term average latency to the recent one.
+ *
+ * While the recent latency stays near the long-term average the limit grows by about its square
+ * root per sample, probing for more throughput. Once requests start to queue in front of the
+ * database the recent latency rises above the average, the ratio drops below one and the limit
+ * shrinks towards the concurrency the database actually sustains. The ratio is bounded below by
+ * one half, so a single slow request cannot collapse the limit, and the long-term average is pulled
+ * down when it drifts far above the recent latency, so the limit recovers after a long overload.
+ *
+ * Acquiring and releasing a permit is lock-free; only the limit update takes a lock.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    // Recent latency may exceed the long-term average by this factor before the limit shrinks
+    private static final double TOLERANCE = 1.5;
+
+    // Weight of each sample in the short and long exponential moving averages of latency
+    private static final double SHORT_SMOOTHING = 0.1;
+    private static final double LONG_SMOOTHING = 2.0 / 601;
+
+    // Weight of each new estimate in the limit itself
+    private static final double LIMIT_SMOOTHING = 0.2;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    // Current limit, read without locking by tryAcquire
+    private volatile double limit;
+
+    // Moving averages of latency in nanoseconds, zero until the first sample
+    private double shortRtt;
+    private double longRtt;
+
+    public AdaptiveConcurrencyLimit(final int initialLimit, final int minLimit, final int maxLimit) {
+        if (minLimit < 1 || initialLimit < minLimit || maxLimit < initialLimit) {
+            throw new IllegalArgumentException(
+                "Expected 1 <= minLimit <= initialLimit <= maxLimit, got " + minLimit + ", " + initialLimit + ", " + maxLimit);
+        }
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    /**
+     * Takes a permit if fewer requests than the limit are in flight.
+     *
+     * @return Whether the request may proceed; if so, it must call one of the release methods when done.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            final int current = inflight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns the permit of a request and adjusts the limit to its latency.
+     *
+     * @param rttNanos How long the request took, in nanoseconds.
+     */
+    public void release(final long rttNanos) {
+        final int inflightBefore = inflight.getAndDecrement();
+        update(rttNanos, inflightBefore);
+    }
+
+    // Returns the permit of a request whose latency says nothing about the load, such as a streamed response
+    public void releaseWithoutSample() {
+        inflight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    private synchronized void update(final long rttNanos, final int inflightBefore) {
+        if (rttNanos <= 0) {
+            return;
+        }
+
+        if (longRtt == 0) {
+            shortRtt = rttNanos;
+            longRtt = rttNanos;
+        } else {
+            shortRtt += (rttNanos - shortRtt) * SHORT_SMOOTHING;
+            longRtt += (rttNanos - longRtt) * LONG_SMOOTHING;
+        }
+
+        // After a long overload the average has absorbed the queueing delay; let it catch up with the present
+        if (longRtt > 2 * shortRtt) {
+            longRtt *= 0.95;
+        }
+
+        final double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / shortRtt));
+        final double estimate = limit * gradient + Math.sqrt(limit);
+        final double smoothed = limit * (1 - LIMIT_SMOOTHING) + estimate * LIMIT_SMOOTHING;
+
+        // Only probe upwards when the limit is actually being used, so idle periods do not inflate it
+        if (smoothed > limit && inflightBefore < limit / 2) {
+            return;
+        }
+        limit = Math.max(minLimit, Math.min(maxLimit, smoothed));
+    }
+
+}
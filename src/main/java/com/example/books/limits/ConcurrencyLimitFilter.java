@@ -0,0 +1,129 @@
+package com.example.books.limits;
+
+import java.io.IOException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Sheds load in front of the book endpoints once they run more requests than the database can serve.
+ *
+ * Reads and writes are admitted against separate adaptive limits, so a burst of writes queuing on
+ * row locks does not starve the reads and the other way round. A request over its limit is answered
+ * right away with SERVICE_UNAVAILABLE and a Retry-After header instead of waiting for a thread or
+ * a connection. Streamed responses such as the catalog export hold their permit until they complete
+ * but do not feed their duration into the limit.
+ *
+ * The limits and the rejections are published as books.concurrency.limit, books.concurrency.inflight
+ * and books.concurrency.rejected, tagged with kind=read or kind=write.
+ */
+@Component
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final String CHANGE_STREAM_PATH = "/books/changes/stream";
+
+    private final AdaptiveConcurrencyLimit readLimit;
+
+    private final AdaptiveConcurrencyLimit writeLimit;
+
+    private final Counter readRejections;
+
+    private final Counter writeRejections;
+
+    // Seconds a rejected client is asked to wait before trying again
+    private final String retryAfter;
+
+    @Autowired
+    public ConcurrencyLimitFilter(
+        @Value("${books.concurrency.read.initial-limit:20}") final int readInitialLimit,
+        @Value("${books.concurrency.read.max-limit:200}") final int readMaxLimit,
+        @Value("${books.concurrency.write.initial-limit:10}") final int writeInitialLimit,
+        @Value("${books.concurrency.write.max-limit:100}") final int writeMaxLimit,
+        @Value("${books.concurrency.min-limit:2}") final int minLimit,
+        @Value("${books.concurrency.retry-after-seconds:1}") final int retryAfterSeconds,
+        final MeterRegistry meterRegistry) {
+
+        this.readLimit = new AdaptiveConcurrencyLimit(readInitialLimit, minLimit, readMaxLimit);
+        this.writeLimit = new AdaptiveConcurrencyLimit(writeInitialLimit, minLimit, writeMaxLimit);
+        this.readRejections = register(meterRegistry, "read", readLimit);
+        this.writeRejections = register(meterRegistry, "write", writeLimit);
+        this.retryAfter = String.valueOf(retryAfterSeconds);
+    }
+
+    // Publishes the limit, the requests in flight and the rejections of one kind of request
+    private static Counter register(final MeterRegistry meterRegistry, final String kind, final AdaptiveConcurrencyLimit limit) {
+        Gauge.builder("books.concurrency.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+            .description("Requests admitted concurrently before shedding load")
+            .tag("kind", kind)
+            .register(meterRegistry);
+        Gauge.builder("books.concurrency.inflight", limit, AdaptiveConcurrencyLimit::getInflight)
+            .description("Requests currently admitted")
+            .tag("kind", kind)
+            .register(meterRegistry);
+        return Counter.builder("books.concurrency.rejected")
+            .description("Requests answered with SERVICE_UNAVAILABLE because the limit was reached")
+            .tag("kind", kind)
+            .register(meterRegistry);
+    }
+
+    // Only the book and author endpoints are limited; health checks and metrics must answer under overload.
+    // The change stream stays open for as long as the client listens, so it would hold a permit indefinitely.
+    @Override
+    protected boolean shouldNotFilter(final HttpServletRequest request) {
+        final String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !(path.equals("/books") || path.startsWith("/books/") || path.equals("/authors") || path.startsWith("/authors/"))
+            || path.equals(CHANGE_STREAM_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(
+        final HttpServletRequest request,
+        final HttpServletResponse response,
+        final FilterChain filterChain) throws ServletException, IOException {
+
+        final boolean read = isRead(request);
+        final AdaptiveConcurrencyLimit limit = read ? readLimit : writeLimit;
+
+        if (!limit.tryAcquire()) {
+            (read ? readRejections : writeRejections).increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfter);
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value());
+            return;
+        }
+
+        final long start = System.nanoTime();
+        boolean sampled = true;
+        try {
+            filterChain.doFilter(request, response);
+            sampled = !request.isAsyncStarted();
+        } finally {
+            if (sampled) {
+                limit.release(System.nanoTime() - start);
+            } else {
+                request.getAsyncContext().addListener(new ReleasingAsyncListener(limit));
+            }
+        }
+    }
+
+    // The lookup of many ISBNs is a POST but only reads
+    private static boolean isRead(final HttpServletRequest request) {
+        final String method = request.getMethod();
+        return HttpMethod.GET.matches(method)
+            || HttpMethod.HEAD.matches(method)
+            || (HttpMethod.POST.matches(method) && request.getRequestURI().endsWith("/books/lookup"));
+    }
+
+}
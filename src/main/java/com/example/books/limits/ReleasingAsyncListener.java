@@ -0,0 +1,48 @@
+package com.example.books.limits;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+
+/**
+ * Returns the concurrency permit of an asynchronous request once it completes, times out or fails.
+ * Only the first of these events releases the permit.
+ */
+class ReleasingAsyncListener implements AsyncListener {
+
+    private final AdaptiveConcurrencyLimit limit;
+
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    ReleasingAsyncListener(final AdaptiveConcurrencyLimit limit) {
+        this.limit = limit;
+    }
+
+    @Override
+    public void onComplete(final AsyncEvent event) {
+        release();
+    }
+
+    @Override
+    public void onTimeout(final AsyncEvent event) {
+        release();
+    }
+
+    @Override
+    public void onError(final AsyncEvent event) {
+        release();
+    }
+
+    @Override
+    public void onStartAsync(final AsyncEvent event) {
+        // The request goes on asynchronously and still holds the permit
+    }
+
+    private void release() {
+        if (released.compareAndSet(false, true)) {
+            limit.releaseWithoutSample();
+        }
+    }
+
+}
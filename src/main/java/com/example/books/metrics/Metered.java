@@ -0,0 +1,24 @@
+package com.example.books.metrics;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a bean or repository interface whose public methods are timed by MeteredMethodInterceptor.
+ * Every method records a timer with the given name, tagged with the class and the method, and a gauge
+ * of its calls in flight named after the timer with an ".active" suffix.
+ */
+@Documented
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Metered {
+
+    // Name of the timers of the methods
+    String value();
+
+}
@@ -0,0 +1,115 @@
+package com.example.books.metrics;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.annotation.MergedAnnotation;
+import org.springframework.core.annotation.MergedAnnotations;
+import org.springframework.core.annotation.MergedAnnotations.SearchStrategy;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Times the methods of beans annotated with @Metered.
+ *
+ * The meters of a method are registered on its first call and cached by method, so later calls only
+ * read the clock twice, bump a LongAdder and record into the pre-registered timer, without allocating.
+ * Micrometer's observation and repository metrics create an observation, its context, key values and
+ * timer samples on every call instead. Calls that throw are recorded under a timer tagged with the
+ * exception class, which is looked up on the failing path only.
+ */
+public class MeteredMethodInterceptor implements MethodInterceptor {
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Method, MethodMeters> meters = new ConcurrentHashMap<>();
+
+    public MeteredMethodInterceptor(final MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object invoke(final MethodInvocation invocation) throws Throwable {
+        MethodMeters methodMeters = meters.get(invocation.getMethod());
+        if (methodMeters == null) {
+            methodMeters = meters.computeIfAbsent(invocation.getMethod(), method -> register(invocation));
+        }
+
+        methodMeters.active.increment();
+        final long start = System.nanoTime();
+        try {
+            final Object result = invocation.proceed();
+            methodMeters.timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (final Throwable e) {
+            methodMeters.failed(e).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        } finally {
+            methodMeters.active.decrement();
+        }
+    }
+
+    // Registers the meters of the method, named after the @Metered annotation of the proxied type
+    private MethodMeters register(final MethodInvocation invocation) {
+        final Class<?> type = invocation instanceof ProxyMethodInvocation proxyInvocation
+            ? proxyInvocation.getProxy().getClass()
+            : AopUtils.getTargetClass(invocation.getThis());
+        final MergedAnnotation<Metered> metered = MergedAnnotations.from(type, SearchStrategy.TYPE_HIERARCHY).get(Metered.class);
+        final String name = metered.getString("value");
+        final String className = ((Class<?>) metered.getSource()).getSimpleName();
+        return new MethodMeters(meterRegistry, name, className, invocation.getMethod().getName());
+    }
+
+    private static final class MethodMeters {
+
+        private final MeterRegistry meterRegistry;
+
+        private final String name;
+
+        private final String className;
+
+        private final String method;
+
+        private final Timer timer;
+
+        private final LongAdder active = new LongAdder();
+
+        // Timers of failed calls by exception class, filled on the failing path
+        private final Map<Class<?>, Timer> failures = new ConcurrentHashMap<>();
+
+        private MethodMeters(final MeterRegistry meterRegistry, final String name, final String className, final String method) {
+            this.meterRegistry = meterRegistry;
+            this.name = name;
+            this.className = className;
+            this.method = method;
+            this.timer = timer("none");
+            Gauge.builder(name + ".active", active, LongAdder::sum)
+                .tag("class", className)
+                .tag("method", method)
+                .description("Calls in flight")
+                .register(meterRegistry);
+        }
+
+        private Timer failed(final Throwable e) {
+            return failures.computeIfAbsent(e.getClass(), type -> timer(type.getSimpleName()));
+        }
+
+        private Timer timer(final String error) {
+            return Timer.builder(name)
+                .tag("class", className)
+                .tag("method", method)
+                .tag("error", error)
+                .register(meterRegistry);
+        }
+    }
+
+}
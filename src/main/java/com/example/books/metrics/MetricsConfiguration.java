@@ -0,0 +1,40 @@
+package com.example.books.metrics;
+
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Wires the metrics that Spring Boot does not record on its own:
+ * timings of the @Metered services and repositories and the number of SQL statements per request.
+ * Handler timings (http.server.requests) are recorded by Spring Boot. Its repository call timings are
+ * switched off in application.properties, as they allocate on every call; @Metered replaces them.
+ */
+@Configuration
+public class MetricsConfiguration implements WebMvcConfigurer {
+
+    private final MeterRegistry meterRegistry;
+
+    public MetricsConfiguration(final MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    // Times the methods of beans annotated with @Metered, with a gauge of the calls in flight
+    @Bean
+    public Advisor meteredAdvisor() {
+        return new DefaultPointcutAdvisor(new AnnotationMatchingPointcut(Metered.class, true),
+            new MeteredMethodInterceptor(meterRegistry));
+    }
+
+    @Override
+    public void addInterceptors(final InterceptorRegistry registry) {
+        registry.addInterceptor(new SqlStatementsInterceptor(meterRegistry));
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.example.books.metrics;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread.
+ *
+ * Registered with Hibernate through the hibernate.session_factory.statement_inspector property, which
+ * instantiates it itself, so the count lives in a static thread local. Each thread has a counter of its own,
+ * so counting a statement does not allocate. Work a thread hands to other threads can count into the
+ * counter of the handing thread by binding it with countInto, so its statements are not lost.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final ThreadLocal<AtomicInteger> STATEMENTS = ThreadLocal.withInitial(AtomicInteger::new);
+
+    @Override
+    public String inspect(final String sql) {
+        STATEMENTS.get().incrementAndGet();
+        return sql;
+    }
+
+    // Starts counting from zero on the current thread
+    public static void reset() {
+        STATEMENTS.get().set(0);
+    }
+
+    // Number of statements prepared on the current thread, or counted into its counter, since the last reset
+    public static int count() {
+        return STATEMENTS.get().get();
+    }
+
+    // The counter of the current thread, to be bound to the threads doing work on its behalf
+    public static AtomicInteger current() {
+        return STATEMENTS.get();
+    }
+
+    /**
+     * Runs work on the current thread, counting its statements into the given counter.
+     *
+     * @param counter The counter of the thread the work is done for.
+     * @param work The work.
+     * @return The result of the work.
+     */
+    public static <T> T countInto(final AtomicInteger counter, final Supplier<T> work) {
+        final AtomicInteger own = STATEMENTS.get();
+        STATEMENTS.set(counter);
+        try {
+            return work.get();
+        } finally {
+            STATEMENTS.set(own);
+        }
+    }
+
+}
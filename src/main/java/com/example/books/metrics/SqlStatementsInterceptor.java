@@ -0,0 +1,59 @@
+package com.example.books.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Records how many SQL statements each request ran, as the books.sql.statements distribution
+ * tagged with the URI pattern of the handler, like http.server.requests. Statements the request hands
+ * to the threads of the shards or to the group commit thread count for it as well.
+ * Statements run after the handler returns, such as those of a streamed export, are not counted.
+ */
+public class SqlStatementsInterceptor implements HandlerInterceptor {
+
+    private final MeterRegistry meterRegistry;
+
+    // One summary per URI pattern, looked up without allocating once registered
+    private final Map<String, DistributionSummary> summaries = new ConcurrentHashMap<>();
+
+    public SqlStatementsInterceptor(final MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean preHandle(final HttpServletRequest request, final HttpServletResponse response, final Object handler) {
+        SqlStatementCounter.reset();
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(
+        final HttpServletRequest request,
+        final HttpServletResponse response,
+        final Object handler,
+        final Exception ex) {
+
+        final Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        final String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+
+        DistributionSummary summary = summaries.get(uri);
+        if (summary == null) {
+            summary = summaries.computeIfAbsent(uri, key -> DistributionSummary.builder("books.sql.statements")
+                .description("SQL statements run per request")
+                .baseUnit("statements")
+                .tag("uri", key)
+                .serviceLevelObjectives(1, 2, 3, 5, 10, 25, 100)
+                .register(meterRegistry));
+        }
+        summary.record(SqlStatementCounter.count());
+    }
+
+}
@@ -1,11 +1,82 @@
 package com.example.books.repositories;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.example.books.domain.Book;
 import com.example.books.domain.BookEntity;
+import com.example.books.metrics.Metered;
+
+import jakarta.persistence.QueryHint;
 
 @Repository
-public interface BookRepository extends JpaRepository<BookEntity, String> {
+@Metered("books.repository")
+public interface BookRepository extends JpaRepository<BookEntity, Long> {
+
+    // The read queries below are the named queries of BookEntity, which build each Book straight from the
+    // result set with a constructor expression. No entity is loaded, so nothing is kept in the persistence
+    // context or snapshotted for dirty checking, and the read-only transactions they run in leave Hibernate
+    // in manual flush mode.
+
+    // Finds a book by its ISBN-13
+    @Transactional(readOnly = true)
+    Optional<Book> findBookByIsbn(@Param("isbn") long isbn);
+
+    // Finds the books among the given ISBN-13s with a single IN query
+    @Transactional(readOnly = true)
+    List<Book> findBooksByIsbnIn(@Param("isbns") Collection<Long> isbns);
+
+    // Finds every book, ordered by ISBN
+    @Transactional(readOnly = true)
+    List<Book> findAllBooks();
+
+    // Seek query on the ISBN primary key: returns at most limit books that sort after the given ISBN.
+    // The limit is a query parameter rather than a Pageable, which Spring Data would apply to the query
+    // text on every call, and the cost does not depend on how deep the page is.
+    @Transactional(readOnly = true)
+    List<Book> findBooksByIsbnGreaterThan(@Param("isbn") long isbn, @Param("limit") int limit);
+
+    // Seek query on the (author, isbn) index: returns at most limit books of an author that sort after the given ISBN
+    @Transactional(readOnly = true)
+    List<Book> findBooksByAuthorAndIsbnGreaterThan(
+        @Param("author") String author, @Param("isbn") long isbn, @Param("limit") int limit);
+
+    // Streams every book ordered by ISBN, reading rows from the JDBC cursor in chunks of the fetch size.
+    // Must be consumed inside a transaction and closed afterwards.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<Book> streamAllBooks();
+
+    // Streams the ISBN of every book without loading the rest of the row.
+    // Must be consumed inside a transaction and closed afterwards.
+    @Query("select b.isbn from BookEntity b")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<Long> streamAllIsbns();
+
+    // Inserts or updates a book with a single MERGE statement.
+    // Reading the OLD TABLE of the merge yields the previous row, so the count is 1 when an existing book
+    // was updated and 0 when a new one was inserted.
+    @Transactional
+    @Query(value = "SELECT COUNT(*) FROM OLD TABLE ("
+        + "MERGE INTO books (isbn, author, title, revision) KEY (isbn) VALUES (:isbn, :author, :title, :revision))",
+        nativeQuery = true)
+    long upsert(
+        @Param("isbn") long isbn,
+        @Param("author") String author,
+        @Param("title") String title,
+        @Param("revision") long revision);
+
+    // Highest revision stored in the books table, or null when it is empty
+    @Query("select max(b.revision) from BookEntity b")
+    Long findMaxRevision();
     
 }
@@ -0,0 +1,326 @@
+package com.example.books.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.example.books.collections.LongIntHashMap;
+import com.example.books.domain.Book;
+import com.example.books.domain.Isbn;
+
+/**
+ * In-memory inverted index over the title and author of books.
+ *
+ * Every indexed book gets an int document id, and every term maps to the ascending array of the ids
+ * of the books containing it. Ids are handed out in increasing order, so new books are appended to the
+ * posting lists. Replacing or removing a book marks its old id as deleted instead of rewriting every
+ * posting list it appears in; the lists are compacted once deleted ids outnumber live ones.
+ *
+ * Searches rank books by the number of distinct query terms they contain, then by indexing order.
+ * Readers share a read lock and writers take the write lock.
+ */
+public class InvertedIndex {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Books by document id, null once the id is deleted
+    private final List<Book> documents = new ArrayList<>();
+
+    private final BitSet deleted = new BitSet();
+
+    private int deletedCount;
+
+    // Document ids by ISBN, without boxing either
+    private final LongIntHashMap documentIds = new LongIntHashMap();
+
+    private final Map<String, PostingList> postings = new HashMap<>();
+
+    /**
+     * Indexes a book, replacing the previously indexed version with the same ISBN.
+     *
+     * @param book The book to index.
+     */
+    public void put(final Book book) {
+        lock.writeLock().lock();
+        try {
+            final long isbn = Isbn.parse(book.getIsbn());
+            removeDocument(isbn);
+
+            final int documentId = documents.size();
+            documents.add(book);
+            documentIds.put(isbn, documentId);
+
+            for (final String term : terms(book)) {
+                postings.computeIfAbsent(term, key -> new PostingList()).add(documentId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the book with the given ISBN from the index, if it is indexed.
+     *
+     * @param isbn The ISBN of the book to remove.
+     */
+    public void remove(final long isbn) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(isbn);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the indexed version of a book.
+     *
+     * @param isbn The ISBN of the book.
+     * @return The indexed book, or null if it is not indexed.
+     */
+    public Book get(final long isbn) {
+        lock.readLock().lock();
+        try {
+            final int documentId = documentIds.getOrDefault(isbn, -1);
+            return documentId < 0 ? null : documents.get(documentId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the books containing any of the terms of the query.
+     *
+     * @param query The text to search for.
+     * @param limit The maximum number of books to return.
+     * @return The matching books, those containing the most query terms first.
+     */
+    public List<Book> search(final String query, final int limit) {
+        final Set<String> terms = new LinkedHashSet<>(Tokenizer.tokenize(query));
+
+        lock.readLock().lock();
+        try {
+            final List<PostingList> lists = new ArrayList<>(terms.size());
+            for (final String term : terms) {
+                final PostingList list = postings.get(term);
+                if (list != null) {
+                    lists.add(list);
+                }
+            }
+            if (lists.isEmpty() || limit < 1) {
+                return Collections.emptyList();
+            }
+
+            // With a single term every match scores the same, so the first live ids are the best ones
+            if (lists.size() == 1) {
+                return firstLive(lists.get(0), limit);
+            }
+
+            // Merge the ascending posting lists, counting in how many of them each document appears.
+            // The best matches are kept in a min-heap of at most limit keys, where a higher score and
+            // then a lower document id rank first. Matches that cannot beat the weakest kept one are skipped,
+            // and the merge stops once no later document can.
+            final LongMinHeap best = new LongMinHeap(limit);
+            final int[] positions = new int[lists.size()];
+            while (true) {
+                int documentId = Integer.MAX_VALUE;
+                int open = 0;
+                for (int i = 0; i < lists.size(); i++) {
+                    if (positions[i] < lists.get(i).size) {
+                        documentId = Math.min(documentId, lists.get(i).ids[positions[i]]);
+                        open++;
+                    }
+                }
+                // Later documents score at most the number of lists left and lose ties on their id
+                if (documentId == Integer.MAX_VALUE || (best.size == limit && (best.peek() >>> 32) >= open)) {
+                    break;
+                }
+
+                int score = 0;
+                for (int i = 0; i < lists.size(); i++) {
+                    if (positions[i] < lists.get(i).size && lists.get(i).ids[positions[i]] == documentId) {
+                        score++;
+                        positions[i]++;
+                    }
+                }
+
+                final long key = ((long) score << 32) | (Integer.MAX_VALUE - documentId);
+                if ((best.size < limit || key > best.peek()) && !deleted.get(documentId)) {
+                    if (best.size == limit) {
+                        best.poll();
+                    }
+                    best.add(key);
+                }
+            }
+
+            final Book[] result = new Book[best.size];
+            for (int i = result.length - 1; i >= 0; i--) {
+                result[i] = documents.get(Integer.MAX_VALUE - (int) best.poll());
+            }
+            return Arrays.asList(result);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Number of books in the index
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentIds.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Number of distinct terms in the index
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // The first live documents of a posting list, in indexing order; the caller holds the read lock
+    private List<Book> firstLive(final PostingList list, final int limit) {
+        final List<Book> result = new ArrayList<>(Math.min(limit, list.size));
+        for (int i = 0; i < list.size && result.size() < limit; i++) {
+            if (!deleted.get(list.ids[i])) {
+                result.add(documents.get(list.ids[i]));
+            }
+        }
+        return result;
+    }
+
+    // Distinct terms of the title and author of a book
+    private static Set<String> terms(final Book book) {
+        final Set<String> terms = new LinkedHashSet<>(Tokenizer.tokenize(book.getTitle()));
+        terms.addAll(Tokenizer.tokenize(book.getAuthor()));
+        return terms;
+    }
+
+    // Marks the document of the ISBN deleted; the caller holds the write lock
+    private void removeDocument(final long isbn) {
+        final int documentId = documentIds.removeOrDefault(isbn, -1);
+        if (documentId < 0) {
+            return;
+        }
+        deleted.set(documentId);
+        documents.set(documentId, null);
+        deletedCount++;
+
+        if (deletedCount > documentIds.size()) {
+            compact();
+        }
+    }
+
+    // Renumbers the live documents and rebuilds the posting lists without the deleted ids
+    private void compact() {
+        final int[] newIds = new int[documents.size()];
+        final List<Book> liveDocuments = new ArrayList<>(documentIds.size());
+        for (int documentId = 0; documentId < documents.size(); documentId++) {
+            if (!deleted.get(documentId)) {
+                newIds[documentId] = liveDocuments.size();
+                liveDocuments.add(documents.get(documentId));
+            }
+        }
+
+        postings.values().forEach(list -> list.retainLive(deleted, newIds));
+        postings.values().removeIf(list -> list.size == 0);
+
+        documents.clear();
+        documents.addAll(liveDocuments);
+        documentIds.replaceAll(documentId -> newIds[documentId]);
+        deleted.clear();
+        deletedCount = 0;
+    }
+
+    // Growable ascending array of document ids
+    private static final class PostingList {
+
+        private int[] ids = new int[2];
+
+        private int size;
+
+        private void add(final int documentId) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            }
+            ids[size++] = documentId;
+        }
+
+        // Drops deleted ids and renumbers the others, keeping them ascending
+        private void retainLive(final BitSet deleted, final int[] newIds) {
+            int live = 0;
+            for (int i = 0; i < size; i++) {
+                if (!deleted.get(ids[i])) {
+                    ids[live++] = newIds[ids[i]];
+                }
+            }
+            size = live;
+            ids = Arrays.copyOf(ids, Math.max(live, 1));
+        }
+    }
+
+    // Binary min-heap of primitive longs with a fixed capacity, so ranking boxes nothing
+    private static final class LongMinHeap {
+
+        private final long[] keys;
+
+        private int size;
+
+        private LongMinHeap(final int capacity) {
+            keys = new long[capacity];
+        }
+
+        private long peek() {
+            return keys[0];
+        }
+
+        private void add(final long key) {
+            int i = size++;
+            while (i > 0) {
+                final int parent = (i - 1) >>> 1;
+                if (keys[parent] <= key) {
+                    break;
+                }
+                keys[i] = keys[parent];
+                i = parent;
+            }
+            keys[i] = key;
+        }
+
+        private long poll() {
+            final long head = keys[0];
+            final long last = keys[--size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && keys[child + 1] < keys[child]) {
+                    child++;
+                }
+                if (last <= keys[child]) {
+                    break;
+                }
+                keys[i] = keys[child];
+                i = child;
+            }
+            keys[i] = last;
+            return head;
+        }
+    }
+
+}
@@ -0,0 +1,371 @@
+package com.example.books.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Compressed prefix tree of completions, each counted by the number of books it was added for.
+ *
+ * Chains of single-child nodes are collapsed into one edge label, so the tree has at most
+ * two nodes per distinct key. Every node also records the highest count in its subtree, which lets
+ * a prefix query visit the subtrees best-first and stop as soon as it has the requested number of
+ * completions, instead of walking every key under the prefix.
+ *
+ * Keys are matched in their folded form (see {@link Tokenizer#fold}), while completions are returned
+ * as first added. Readers share a read lock and writers take the write lock.
+ */
+public class RadixTrie {
+
+    // Rough sizes of the JVM objects making up a node, with compressed references
+    private static final int NODE_BYTES = 32;
+    private static final int STRING_BYTES = 24;
+    private static final int ARRAY_HEADER_BYTES = 16;
+    private static final int REFERENCE_BYTES = 4;
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Node root = new Node("");
+
+    private int entries;
+
+    /**
+     * A completion and the number of books it was added for.
+     *
+     * @param text The completion as first added.
+     * @param count The number of books it was added for.
+     */
+    public record Completion(String text, int count) {
+    }
+
+    /**
+     * Adds one occurrence of a completion.
+     *
+     * @param text The completion text; blank texts are ignored.
+     */
+    public void add(final String text) {
+        final String key = Tokenizer.fold(text).strip();
+        if (key.isEmpty()) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            final List<Node> path = new ArrayList<>();
+            Node node = root;
+            int offset = 0;
+            path.add(node);
+
+            while (offset < key.length()) {
+                final int index = node.childIndex(key.charAt(offset));
+                if (index < 0) {
+                    // No edge starts with the next character: hang the rest of the key under this node
+                    final Node leaf = new Node(key.substring(offset));
+                    node.insertChild(-index - 1, leaf);
+                    node = leaf;
+                    path.add(node);
+                    break;
+                }
+
+                final Node child = node.children[index];
+                final int common = commonPrefixLength(child.label, key, offset);
+                if (common < child.label.length()) {
+                    // The key leaves the edge half way: split it at the point where they differ
+                    final Node split = new Node(child.label.substring(0, common));
+                    child.label = child.label.substring(common);
+                    split.children = new Node[] {child};
+                    split.maxCount = child.maxCount;
+                    node.children[index] = split;
+                    node = split;
+                } else {
+                    node = child;
+                }
+                offset += common;
+                path.add(node);
+            }
+
+            if (node.count++ == 0) {
+                node.text = text.strip();
+                entries++;
+            }
+            updateMaxCounts(path);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes one occurrence of a completion, dropping it once no book refers to it any more.
+     *
+     * @param text The completion text.
+     */
+    public void remove(final String text) {
+        final String key = Tokenizer.fold(text).strip();
+        if (key.isEmpty()) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            final List<Node> path = new ArrayList<>();
+            Node node = root;
+            int offset = 0;
+            path.add(node);
+
+            while (offset < key.length()) {
+                final int index = node.childIndex(key.charAt(offset));
+                if (index < 0 || !key.startsWith(node.children[index].label, offset)) {
+                    return;
+                }
+                node = node.children[index];
+                offset += node.label.length();
+                path.add(node);
+            }
+
+            if (node.count == 0) {
+                return;
+            }
+            if (--node.count == 0) {
+                node.text = null;
+                entries--;
+                prune(path);
+            }
+            updateMaxCounts(path);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the completions of a prefix with the highest counts.
+     *
+     * @param prefix The prefix typed so far, compared in folded form.
+     * @param limit The maximum number of completions to return.
+     * @return The completions starting with the prefix, highest count first.
+     */
+    public List<Completion> complete(final String prefix, final int limit) {
+        final String key = Tokenizer.fold(prefix).stripLeading();
+        final List<Completion> completions = new ArrayList<>();
+
+        lock.readLock().lock();
+        try {
+            // Walk down to the node whose subtree holds every key starting with the prefix
+            Node node = root;
+            int offset = 0;
+            while (offset < key.length()) {
+                final int index = node.childIndex(key.charAt(offset));
+                if (index < 0) {
+                    return completions;
+                }
+                final Node child = node.children[index];
+                final int common = commonPrefixLength(child.label, key, offset);
+                if (common < child.label.length() && offset + common < key.length()) {
+                    return completions;
+                }
+                node = child;
+                offset += common;
+            }
+
+            // Best-first over subtrees by their highest count; a completion is taken once nothing left can beat it.
+            // Entries are nodes, ranked by maxCount, and completions, ranked by count; ties go to the completion.
+            final PriorityQueue<Candidate> candidates = new PriorityQueue<>();
+            candidates.add(new Candidate(node, false));
+            while (!candidates.isEmpty() && completions.size() < limit) {
+                final Candidate candidate = candidates.poll();
+                if (candidate.complete) {
+                    completions.add(new Completion(candidate.node.text, candidate.node.count));
+                    continue;
+                }
+                if (candidate.node.count > 0) {
+                    candidates.add(new Candidate(candidate.node, true));
+                }
+                for (final Node child : candidate.node.children) {
+                    candidates.add(new Candidate(child, false));
+                }
+            }
+            return completions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Number of distinct completions
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Estimates the heap used by the trie, counting nodes, edge labels, child arrays and completion texts.
+     *
+     * @return The estimated size in bytes.
+     */
+    public long estimatedBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 0;
+            final List<Node> pending = new ArrayList<>(List.of(root));
+            while (!pending.isEmpty()) {
+                final Node node = pending.remove(pending.size() - 1);
+                bytes += NODE_BYTES + stringBytes(node.label) + stringBytes(node.text);
+                if (node.children.length > 0) {
+                    bytes += ARRAY_HEADER_BYTES + (long) REFERENCE_BYTES * node.children.length;
+                }
+                pending.addAll(Arrays.asList(node.children));
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Estimated heap used per distinct completion
+    public double estimatedBytesPerEntry() {
+        final int size = size();
+        return size == 0 ? 0 : (double) estimatedBytes() / size;
+    }
+
+    private static long stringBytes(final String text) {
+        // Latin-1 strings store one byte per character
+        return text == null ? 0 : STRING_BYTES + ARRAY_HEADER_BYTES + text.length();
+    }
+
+    private static int commonPrefixLength(final String label, final String key, final int offset) {
+        final int max = Math.min(label.length(), key.length() - offset);
+        int length = 0;
+        while (length < max && label.charAt(length) == key.charAt(offset + length)) {
+            length++;
+        }
+        return length;
+    }
+
+    // Removes the empty leaf at the end of the path and merges nodes left with a single child and no completion
+    private static void prune(final List<Node> path) {
+        final Node node = path.get(path.size() - 1);
+        if (path.size() == 1) {
+            return;
+        }
+        final Node parent = path.get(path.size() - 2);
+
+        if (node.children.length == 0) {
+            parent.removeChild(node);
+            path.remove(path.size() - 1);
+            if (path.size() > 1 && parent.count == 0 && parent.children.length == 1) {
+                parent.mergeWithOnlyChild();
+            }
+        } else if (node.children.length == 1) {
+            node.mergeWithOnlyChild();
+        }
+    }
+
+    // Recomputes the highest count of every subtree along the path, from the bottom up
+    private static void updateMaxCounts(final List<Node> path) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            final Node node = path.get(i);
+            int maxCount = node.count;
+            for (final Node child : node.children) {
+                maxCount = Math.max(maxCount, child.maxCount);
+            }
+            node.maxCount = maxCount;
+        }
+    }
+
+    private static final class Node {
+
+        // Characters on the edge from the parent to this node
+        private String label;
+
+        // Children ordered by the first character of their label
+        private Node[] children = NO_CHILDREN;
+
+        // Completion ending at this node and the number of books it was added for, or null and 0
+        private String text;
+        private int count;
+
+        // Highest count in the subtree rooted at this node
+        private int maxCount;
+
+        private Node(final String label) {
+            this.label = label;
+        }
+
+        // Index of the child whose label starts with c, or (-(insertion point) - 1)
+        private int childIndex(final char c) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                final int middle = (low + high) >>> 1;
+                final char first = children[middle].label.charAt(0);
+                if (first < c) {
+                    low = middle + 1;
+                } else if (first > c) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -(low + 1);
+        }
+
+        private void insertChild(final int index, final Node child) {
+            final Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, index);
+            grown[index] = child;
+            System.arraycopy(children, index, grown, index + 1, children.length - index);
+            children = grown;
+        }
+
+        private void removeChild(final Node child) {
+            final int index = childIndex(child.label.charAt(0));
+            final Node[] shrunk = children.length == 1 ? NO_CHILDREN : new Node[children.length - 1];
+            System.arraycopy(children, 0, shrunk, 0, index);
+            System.arraycopy(children, index + 1, shrunk, index, children.length - index - 1);
+            children = shrunk;
+        }
+
+        // Absorbs the only child into this node, which has no completion of its own
+        private void mergeWithOnlyChild() {
+            final Node child = children[0];
+            label = label + child.label;
+            children = child.children;
+            text = child.text;
+            count = child.count;
+            maxCount = child.maxCount;
+        }
+    }
+
+    private static final class Candidate implements Comparable<Candidate> {
+
+        private final Node node;
+
+        private final boolean complete;
+
+        private Candidate(final Node node, final boolean complete) {
+            this.node = node;
+            this.complete = complete;
+        }
+
+        private int priority() {
+            return complete ? node.count : node.maxCount;
+        }
+
+        @Override
+        public int compareTo(final Candidate other) {
+            final int byPriority = Integer.compare(other.priority(), priority());
+            if (byPriority != 0) {
+                return byPriority;
+            }
+            return Boolean.compare(other.complete, complete);
+        }
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.example.books.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Splits titles, authors and queries into search terms.
+ * Terms are runs of letters and digits, case-folded and stripped of accents,
+ * so "Brontë" and "BRONTE" end up as the same term.
+ */
+public final class Tokenizer {
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    // Private constructor to prevent instantiation of the utility class.
+    private Tokenizer(){
+
+    }
+
+    /**
+     * Folds a text to the form terms are compared in: lower case without accents.
+     *
+     * @param text The text to fold, may be null.
+     * @return The folded text, empty for null.
+     */
+    public static String fold(final String text) {
+        if (text == null) {
+            return "";
+        }
+        final String decomposed = Normalizer.normalize(text, Normalizer.Form.NFKD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Splits a text into its folded terms, in order of appearance.
+     *
+     * @param text The text to split, may be null.
+     * @return The terms of the text, possibly repeated.
+     */
+    public static List<String> tokenize(final String text) {
+        final List<String> terms = new ArrayList<>();
+        for (final String term : SEPARATORS.split(fold(text))) {
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+
+}
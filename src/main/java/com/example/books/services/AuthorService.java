@@ -0,0 +1,10 @@
+package com.example.books.services;
+
+import com.example.books.domain.AuthorPage;
+
+public interface AuthorService {
+
+    // A page of at most limit authors, with their number of books, whose name sorts after the given cursor (null for the first page)
+    AuthorPage listAuthors(String after, int limit);
+
+}
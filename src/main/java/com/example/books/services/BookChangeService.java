@@ -0,0 +1,21 @@
+package com.example.books.services;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.books.domain.BookChange;
+
+public interface BookChangeService {
+
+    // Sequence number of the latest committed change, the cursor to follow the feed from now on
+    long latestSequence();
+
+    // The oldest changes after the given sequence number, or empty if some of them are no longer retained
+    Optional<List<BookChange>> changesSince(long sequence, int limit);
+
+    // Streams the changes after the given sequence number, then every new change as it is committed
+    SseEmitter subscribe(long sequence);
+    
+}
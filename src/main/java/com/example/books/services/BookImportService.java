@@ -0,0 +1,16 @@
+package com.example.books.services;
+
+import java.util.Optional;
+
+import com.example.books.domain.BookImport;
+
+public interface BookImportService {
+
+    // Starts importing a CSV or NDJSON file of the import directory in the background, or empty if there is no such file.
+    // Throws IllegalArgumentException if the name leaves the import directory or does not end with a supported extension.
+    Optional<BookImport> start(String file);
+
+    // The progress of an import, until it has been finished for longer than the retention
+    Optional<BookImport> findById(String id);
+    
+}
@@ -0,0 +1,16 @@
+package com.example.books.services;
+
+import java.util.List;
+
+import com.example.books.domain.Book;
+import com.example.books.domain.Suggestion;
+
+public interface BookSearchService {
+
+    // Finds the books whose title or author contain the words of the query, best matches first
+    List<Book> search(String query, int limit);
+
+    // Completes the beginning of a title or author, the completions leading to the most books first
+    List<Suggestion> suggest(String prefix, int limit);
+    
+}
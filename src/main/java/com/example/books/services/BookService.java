@@ -2,23 +2,46 @@ package com.example.books.services;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import com.example.books.domain.Book;
+import com.example.books.domain.BookLookupResult;
+import com.example.books.domain.BookPage;
+import com.example.books.domain.BookSaveResult;
+import com.example.books.domain.BookSaveStatus;
 
 public interface BookService {
 
     // Creates a new book in the system
     Book save(Book book);
 
-     // Finds a book by its ISBN
-    Optional<Book> findById(String ibsn);
+    // Creates or updates a book with a single statement, reporting which of the two happened
+    BookSaveStatus upsert(Book book);
 
-    // All books list
+    // Creates or updates many books in one transaction, reporting the outcome per ISBN
+    List<BookSaveResult> saveAll(List<Book> books);
+
+     // Finds a book by its ISBN-13
+    Optional<Book> findById(long isbn);
+
+    // Finds many books by ISBN-13, reporting FOUND or MISSING for each one in request order
+    List<BookLookupResult> findAllById(List<Long> isbns);
+
+    // All books list, ordered by ISBN-13
     List<Book> listBooks();
 
+    // A page of at most limit books whose ISBN-13 sorts after the given cursor (null for the first page)
+    BookPage listBooks(Long after, int limit);
+
+    // A page of at most limit books of an author whose ISBN-13 sorts after the given cursor (null for the first page)
+    BookPage listBooksByAuthor(String author, Long after, int limit);
+
+    // Hands every book, ordered by ISBN, to the consumer as it is read from the database
+    void exportBooks(Consumer<Book> consumer);
+
     boolean isBookExits(Book book);
 
-    // Delete book by id
-    void deleteBookById(String isbn);
+    // Delete book by its ISBN-13
+    void deleteBookById(long isbn);
     
 }
@@ -0,0 +1,18 @@
+package com.example.books.services;
+
+import java.util.Optional;
+
+import com.example.books.snapshots.CatalogSnapshot;
+
+public interface CatalogSnapshotService {
+
+    // Whether GET /books and GET /books/{isbn} are answered from the snapshot instead of the database
+    boolean isServing();
+
+    // The snapshot being served, or empty until one has been loaded
+    Optional<CatalogSnapshot> current();
+
+    // Writes every book of the database to the snapshot file, replacing the previous snapshot in one step
+    void export();
+    
+}
@@ -0,0 +1,110 @@
+package com.example.books.services.impl;
+
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.books.authors.AuthorCounts;
+import com.example.books.collections.LongHashSet;
+import com.example.books.domain.AuthorPage;
+import com.example.books.domain.Book;
+import com.example.books.domain.Isbn;
+import com.example.books.events.BookDeletedEvent;
+import com.example.books.events.BookSavedEvent;
+import com.example.books.repositories.BookRepository;
+import com.example.books.services.AuthorService;
+import com.example.books.shards.BookShards;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Service
+public class AuthorServiceImpl implements AuthorService {
+
+    private final BookRepository bookRepository;
+
+    private final BookShards shards;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final AuthorCounts counts = new AuthorCounts();
+
+    // ISBNs written while the counts are being built from the table, whose streamed rows may be older.
+    // Null once the build is complete.
+    private LongHashSet writtenDuringBuild = new LongHashSet();
+
+    // Inject the repository and the transaction manager used to read the table when the counts are built
+    @Autowired
+    public AuthorServiceImpl(
+        final BookRepository bookRepository,
+        final BookShards shards,
+        final PlatformTransactionManager transactionManager,
+        final MeterRegistry meterRegistry){
+        this.bookRepository = bookRepository;
+        this.shards = shards;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+
+        Gauge.builder("books.authors.books", counts, AuthorCounts::books).register(meterRegistry);
+    }
+
+    // Served from the maintained counts, without querying the database
+    @Override
+    public AuthorPage listAuthors(final String after, final int limit) {
+        return counts.page(after, limit);
+    }
+
+    // Counts every stored book once the application has started
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        // Every shard streams its books at the same time; the stored books are applied one at a time
+        shards.fanOut(shard -> transactionTemplate.execute(status -> {
+            try (Stream<Book> books = bookRepository.streamAllBooks()) {
+                books.forEach(this::countStoredBook);
+            }
+            return null;
+        }));
+
+        synchronized (this) {
+            writtenDuringBuild = null;
+        }
+    }
+
+    // Moves the book to the count of its author once the write is committed
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookSaved(final BookSavedEvent event) {
+        final long isbn = Isbn.parse(event.getBook().getIsbn());
+        synchronized (this) {
+            if (writtenDuringBuild != null) {
+                writtenDuringBuild.add(isbn);
+            }
+            counts.put(isbn, event.getBook().getAuthor());
+        }
+    }
+
+    // Takes the book out of the count of its author once the delete is committed
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookDeleted(final BookDeletedEvent event) {
+        synchronized (this) {
+            if (writtenDuringBuild != null) {
+                writtenDuringBuild.add(event.getIsbn());
+            }
+            counts.remove(event.getIsbn());
+        }
+    }
+
+    // Counts a streamed row unless a newer write of the same ISBN has already been applied
+    private synchronized void countStoredBook(final Book book) {
+        final long isbn = Isbn.parse(book.getIsbn());
+        if (writtenDuringBuild == null || !writtenDuringBuild.contains(isbn)) {
+            counts.put(isbn, book.getAuthor());
+        }
+    }
+
+}
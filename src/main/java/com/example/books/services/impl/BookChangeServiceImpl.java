@@ -0,0 +1,163 @@
+package com.example.books.services.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.books.changes.ChangeLog;
+import com.example.books.domain.BookChange;
+import com.example.books.domain.Isbn;
+import com.example.books.events.BookDeletedEvent;
+import com.example.books.events.BookSavedEvent;
+import com.example.books.services.BookChangeService;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+@Service
+public class BookChangeServiceImpl implements BookChangeService {
+
+    // Number of changes sent to a stream subscriber per read of the log
+    private static final int SEND_BATCH_SIZE = 1000;
+
+    private final ChangeLog changeLog;
+
+    // Sends the changes to the stream subscribers, one at a time and in sequence order.
+    // Only this thread touches the subscribers, and slow subscribers never hold up the writes.
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "book-changes");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final List<Subscriber> subscribers = new ArrayList<>();
+
+    // Size of the subscriber list, kept by the dispatcher for the gauge read on the metrics thread
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    // Sequence numbers start at the start time in microseconds, so they keep increasing across restarts
+    // and a cursor from before a restart is recognised as not covered by the log
+    @Autowired
+    public BookChangeServiceImpl(
+        @Value("${books.changes.capacity:100000}") final int capacity,
+        final MeterRegistry meterRegistry){
+        this.changeLog = new ChangeLog(System.currentTimeMillis() * 1000, capacity);
+
+        Gauge.builder("books.changes.retained", changeLog, ChangeLog::size).register(meterRegistry);
+        Gauge.builder("books.changes.subscribers", subscriberCount, AtomicInteger::get).register(meterRegistry);
+    }
+
+    @Override
+    public long latestSequence() {
+        return changeLog.lastSequence();
+    }
+
+    @Override
+    public Optional<List<BookChange>> changesSince(final long sequence, final int limit) {
+        return changeLog.since(sequence, limit);
+    }
+
+    @Override
+    public SseEmitter subscribe(final long sequence) {
+        final SseEmitter emitter = new SseEmitter();
+        final Subscriber subscriber = new Subscriber(emitter, sequence);
+
+        emitter.onCompletion(() -> dispatcher.execute(() -> removeSubscriber(subscriber)));
+        emitter.onTimeout(emitter::complete);
+
+        // Catch up from the cursor first; changes appended meanwhile are picked up by the same send
+        dispatcher.execute(() -> {
+            subscribers.add(subscriber);
+            subscriberCount.incrementAndGet();
+            send(subscriber);
+        });
+        return emitter;
+    }
+
+    // Appends the save once it is committed, so the feed never announces a write that was rolled back
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookSaved(final BookSavedEvent event) {
+        changeLog.append(BookChange.Type.SAVED, event.getBook().getIsbn(), event.getBook());
+        dispatcher.execute(this::sendAll);
+    }
+
+    // Appends a tombstone once the delete is committed
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookDeleted(final BookDeletedEvent event) {
+        changeLog.append(BookChange.Type.DELETED, Isbn.format(event.getIsbn()), null);
+        dispatcher.execute(this::sendAll);
+    }
+
+    @PreDestroy
+    public void close() {
+        dispatcher.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    private void sendAll() {
+        new ArrayList<>(subscribers).forEach(this::send);
+    }
+
+    // Sends the subscriber every change after the last one it received.
+    // A subscriber that fell so far behind that the log dropped changes it has not seen is told to
+    // reload the catalog and disconnected; one whose connection failed is dropped.
+    private void send(final Subscriber subscriber) {
+        try {
+            while (true) {
+                final Optional<List<BookChange>> changes = changeLog.since(subscriber.lastSequence, SEND_BATCH_SIZE);
+                if (changes.isEmpty()) {
+                    subscriber.emitter.send(SseEmitter.event().name("reset").data(subscriber.lastSequence));
+                    removeSubscriber(subscriber);
+                    subscriber.emitter.complete();
+                    return;
+                }
+                if (changes.get().isEmpty()) {
+                    return;
+                }
+                for (final BookChange change : changes.get()) {
+                    subscriber.emitter.send(SseEmitter.event()
+                        .id(String.valueOf(change.getSequence()))
+                        .name(change.getType().name().toLowerCase())
+                        .data(change, MediaType.APPLICATION_JSON));
+                    subscriber.lastSequence = change.getSequence();
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            removeSubscriber(subscriber);
+            subscriber.emitter.completeWithError(e);
+        }
+    }
+
+    // Drops a subscriber once; a failed send and the completion callback may both remove it
+    private void removeSubscriber(final Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            subscriberCount.decrementAndGet();
+        }
+    }
+
+    // A stream of changes and the sequence number of the last change sent to it
+    private static final class Subscriber {
+
+        private final SseEmitter emitter;
+
+        private long lastSequence;
+
+        private Subscriber(final SseEmitter emitter, final long lastSequence) {
+            this.emitter = emitter;
+            this.lastSequence = lastSequence;
+        }
+    }
+
+}
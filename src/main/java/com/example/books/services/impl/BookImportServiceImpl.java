@@ -0,0 +1,285 @@
+package com.example.books.services.impl;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.books.domain.Book;
+import com.example.books.domain.BookImport;
+import com.example.books.imports.ChunkParser;
+import com.example.books.imports.ChunkReader;
+import com.example.books.imports.CsvRecordParser;
+import com.example.books.imports.NdjsonRecordParser;
+import com.example.books.imports.ParsedChunk;
+import com.example.books.imports.RecordParser;
+import com.example.books.services.BookImportService;
+import com.example.books.services.BookService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+@Service
+public class BookImportServiceImpl implements BookImportService {
+
+    private final BookService bookService;
+
+    private final ObjectMapper objectMapper;
+
+    // Directory the imported files are read from; files outside of it cannot be imported
+    private final Path directory;
+
+    // Bytes of the file parsed by a thread at a time
+    private final int chunkSize;
+
+    // Books written per transaction
+    private final int batchSize;
+
+    private final int parallelism;
+
+    // Runs one import at a time; further imports wait for it
+    private final ExecutorService importer = Executors.newSingleThreadExecutor(daemon("book-import"));
+
+    private final ExecutorService parsers;
+
+    // Imports by id; finished ones are dropped once they are older than the retention
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+
+    private final long retentionNanos;
+
+    private final Counter importedRows;
+
+    private final Counter rejectedRows;
+
+    // Inject the service the books are written through, the mapper of NDJSON lines and the import settings
+    @Autowired
+    public BookImportServiceImpl(
+        final BookService bookService,
+        final ObjectMapper objectMapper,
+        @Value("${books.import.directory:imports}") final String directory,
+        @Value("${books.import.chunk-size:4194304}") final int chunkSize,
+        @Value("${books.import.batch-size:5000}") final int batchSize,
+        @Value("${books.import.parallelism:0}") final int parallelism,
+        @Value("${books.import.retention:1h}") final Duration retention,
+        final MeterRegistry meterRegistry){
+        this.bookService = bookService;
+        this.objectMapper = objectMapper;
+        this.directory = Paths.get(directory).toAbsolutePath().normalize();
+        this.chunkSize = chunkSize;
+        this.batchSize = batchSize;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.retentionNanos = retention.toNanos();
+        this.parsers = Executors.newFixedThreadPool(this.parallelism, daemon("book-import-parser"));
+
+        this.importedRows = Counter.builder("books.import.rows").tag("outcome", "imported").register(meterRegistry);
+        this.rejectedRows = Counter.builder("books.import.rows").tag("outcome", "rejected").register(meterRegistry);
+    }
+
+    @Override
+    public Optional<BookImport> start(final String file) {
+        final Path source = resolve(file);
+        final RecordParser parser = parserFor(source)
+            .orElseThrow(() -> new IllegalArgumentException("Not a .csv, .ndjson or .jsonl file: " + file));
+        if (!Files.isRegularFile(source)) {
+            return Optional.empty();
+        }
+
+        expireFinishedJobs();
+        final Path rejectFile = source.resolveSibling(source.getFileName() + ".rejects");
+        final ImportJob job = new ImportJob(UUID.randomUUID().toString(), directory.relativize(source).toString(),
+            rejectFile, directory.relativize(rejectFile).toString());
+        jobs.put(job.id, job);
+        importer.execute(() -> run(job, source, parser));
+        return Optional.of(job.snapshot());
+    }
+
+    @Override
+    public Optional<BookImport> findById(final String id) {
+        expireFinishedJobs();
+        return Optional.ofNullable(jobs.get(id)).map(ImportJob::snapshot);
+    }
+
+    @PreDestroy
+    public void close() {
+        importer.shutdownNow();
+        parsers.shutdownNow();
+    }
+
+    // Resolves a file name against the import directory, rejecting names that leave it or name no file
+    private Path resolve(final String file) {
+        final Path source;
+        try {
+            source = directory.resolve(file).normalize();
+        } catch (InvalidPathException e) {
+            throw new IllegalArgumentException("Not a valid file name: " + file, e);
+        }
+        if (!source.startsWith(directory) || source.equals(directory)) {
+            throw new IllegalArgumentException("Not a file of the import directory: " + file);
+        }
+        return source;
+    }
+
+    // Drops the imports that finished longer than the retention ago
+    private void expireFinishedJobs() {
+        final long now = System.nanoTime();
+        jobs.values().removeIf(job -> job.finishedAt != 0 && now - job.finishedAt >= retentionNanos);
+    }
+
+    // The format is told by the extension of the file
+    private Optional<RecordParser> parserFor(final Path file) {
+        final String name = file.getFileName().toString().toLowerCase();
+        if (name.endsWith(".csv")) {
+            return Optional.of(new CsvRecordParser());
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return Optional.of(new NdjsonRecordParser(objectMapper));
+        }
+        return Optional.empty();
+    }
+
+    // Parses the chunks of the file in parallel and writes them in file order, so the last line wins
+    // for an ISBN that appears more than once. At most two chunks per parsing thread are held at a time:
+    // reading the file waits for the oldest chunk to be written, which bounds memory whatever the file size.
+    private void run(final ImportJob job, final Path source, final RecordParser parser) {
+        try (ChunkReader reader = new ChunkReader(source, chunkSize);
+             BufferedWriter rejects = Files.newBufferedWriter(job.rejectFile)) {
+
+            final Deque<Future<ParsedChunk>> pending = new ArrayDeque<>();
+            long lines = 0;
+            boolean firstChunk = true;
+
+            ByteBuffer chunk;
+            while ((chunk = reader.next()) != null) {
+                final ByteBuffer parsedChunk = chunk;
+                final boolean first = firstChunk;
+                pending.add(parsers.submit(() -> ChunkParser.parse(parsedChunk, parser, first)));
+                firstChunk = false;
+
+                if (pending.size() >= 2 * parallelism) {
+                    lines = write(job, pending.poll().get(), lines, rejects);
+                }
+            }
+            while (!pending.isEmpty()) {
+                lines = write(job, pending.poll().get(), lines, rejects);
+            }
+
+            job.status = BookImport.Status.COMPLETED;
+        } catch (ExecutionException e) {
+            job.fail(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.fail(e);
+        } catch (IOException | RuntimeException e) {
+            job.fail(e);
+        } finally {
+            job.finishedAt = System.nanoTime();
+        }
+    }
+
+    // Writes the books of a chunk in batches, each in its own transaction, and its rejected lines to the reject file.
+    // Returns the number of lines of the file up to the end of the chunk.
+    private long write(final ImportJob job, final ParsedChunk chunk, final long lines, final BufferedWriter rejects)
+        throws IOException {
+
+        final List<Book> books = chunk.books();
+        for (int from = 0; from < books.size(); from += batchSize) {
+            final int to = Math.min(from + batchSize, books.size());
+            bookService.saveAll(books.subList(from, to));
+            job.imported.addAndGet(to - from);
+            importedRows.increment(to - from);
+        }
+
+        for (final ParsedChunk.Reject reject : chunk.rejects()) {
+            rejects.write((lines + reject.line()) + "\t" + reject.reason() + "\t" + reject.text());
+            rejects.newLine();
+        }
+        job.rejected.addAndGet(chunk.rejects().size());
+        rejectedRows.increment(chunk.rejects().size());
+
+        return lines + chunk.lines();
+    }
+
+    private static ThreadFactory daemon(final String name) {
+        return runnable -> {
+            final Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    // State of an import, updated by the import thread and read by the requests asking for progress
+    private static final class ImportJob {
+
+        private final String id;
+
+        private final String file;
+
+        private final Path rejectFile;
+
+        // The reject file relative to the import directory, as told to clients
+        private final String rejectName;
+
+        private final long startedAt = System.nanoTime();
+
+        private final AtomicLong imported = new AtomicLong();
+
+        private final AtomicLong rejected = new AtomicLong();
+
+        private volatile BookImport.Status status = BookImport.Status.RUNNING;
+
+        private volatile String error;
+
+        private volatile long finishedAt;
+
+        private ImportJob(final String id, final String file, final Path rejectFile, final String rejectName) {
+            this.id = id;
+            this.file = file;
+            this.rejectFile = rejectFile;
+            this.rejectName = rejectName;
+        }
+
+        private void fail(final Throwable cause) {
+            error = cause.toString();
+            status = BookImport.Status.FAILED;
+        }
+
+        private BookImport snapshot() {
+            final long end = finishedAt != 0 ? finishedAt : System.nanoTime();
+            final double seconds = Math.max(end - startedAt, 1) / 1e9;
+            return BookImport.builder()
+                .id(id)
+                .file(file)
+                .status(status)
+                .imported(imported.get())
+                .rejected(rejected.get())
+                .rowsPerSecond((imported.get() + rejected.get()) / seconds)
+                .rejectFile(rejectName)
+                .error(error)
+                .build();
+        }
+    }
+
+}
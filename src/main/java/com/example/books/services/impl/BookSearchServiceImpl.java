@@ -0,0 +1,165 @@
+package com.example.books.services.impl;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.books.collections.LongHashSet;
+import com.example.books.domain.Book;
+import com.example.books.domain.Isbn;
+import com.example.books.domain.Suggestion;
+import com.example.books.events.BookDeletedEvent;
+import com.example.books.events.BookSavedEvent;
+import com.example.books.metrics.Metered;
+import com.example.books.repositories.BookRepository;
+import com.example.books.search.InvertedIndex;
+import com.example.books.search.RadixTrie;
+import com.example.books.services.BookSearchService;
+import com.example.books.shards.BookShards;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Service
+@Metered("books.search.service")
+public class BookSearchServiceImpl implements BookSearchService {
+
+    private final BookRepository bookRepository;
+
+    private final BookShards shards;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final InvertedIndex index = new InvertedIndex();
+
+    // Completions of titles and authors, counted by the number of books carrying them
+    private final RadixTrie titles = new RadixTrie();
+    private final RadixTrie authors = new RadixTrie();
+
+    // ISBNs written while the index is being built from the table, whose streamed rows may be older.
+    // Null once the build is complete.
+    private LongHashSet writtenDuringBuild = new LongHashSet();
+
+    // Inject the repository and the transaction manager used to read the table when the index is built
+    @Autowired
+    public BookSearchServiceImpl(
+        final BookRepository bookRepository,
+        final BookShards shards,
+        final PlatformTransactionManager transactionManager,
+        final MeterRegistry meterRegistry){
+        this.bookRepository = bookRepository;
+        this.shards = shards;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+
+        Gauge.builder("books.search.index.books", index, InvertedIndex::size).register(meterRegistry);
+        Gauge.builder("books.search.index.terms", index, InvertedIndex::termCount).register(meterRegistry);
+        Gauge.builder("books.suggest.entries", () -> titles.size() + authors.size()).register(meterRegistry);
+        Gauge.builder("books.suggest.bytes", () -> titles.estimatedBytes() + authors.estimatedBytes())
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        Gauge.builder("books.suggest.bytes.per.entry", this::estimatedBytesPerSuggestion)
+            .baseUnit("bytes")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public List<Book> search(final String query, final int limit) {
+        return index.search(query, limit);
+    }
+
+    @Override
+    public List<Suggestion> suggest(final String prefix, final int limit) {
+
+        // Each trie returns its own best completions; the overall best are among them
+        final List<Suggestion> suggestions = new ArrayList<>();
+        titles.complete(prefix, limit)
+            .forEach(completion -> suggestions.add(new Suggestion(completion.text(), Suggestion.Kind.TITLE, completion.count())));
+        authors.complete(prefix, limit)
+            .forEach(completion -> suggestions.add(new Suggestion(completion.text(), Suggestion.Kind.AUTHOR, completion.count())));
+
+        return suggestions.stream()
+            .sorted(Comparator.comparingInt(Suggestion::getBooks).reversed())
+            .limit(limit)
+            .collect(Collectors.toList());
+    }
+
+    // Estimated heap used by the completion tries per distinct title or author
+    public double estimatedBytesPerSuggestion() {
+        final int entries = titles.size() + authors.size();
+        return entries == 0 ? 0 : (double) (titles.estimatedBytes() + authors.estimatedBytes()) / entries;
+    }
+
+    // Indexes every stored book once the application has started
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        // Every shard streams its books at the same time; the stored books are applied one at a time
+        shards.fanOut(shard -> transactionTemplate.execute(status -> {
+            try (Stream<Book> books = bookRepository.streamAllBooks()) {
+                books.forEach(this::indexStoredBook);
+            }
+            return null;
+        }));
+
+        synchronized (this) {
+            writtenDuringBuild = null;
+        }
+    }
+
+    // Re-indexes the book once the write is committed
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookSaved(final BookSavedEvent event) {
+        synchronized (this) {
+            if (writtenDuringBuild != null) {
+                writtenDuringBuild.add(Isbn.parse(event.getBook().getIsbn()));
+            }
+            apply(event.getBook());
+        }
+    }
+
+    // Drops the book from the index once the delete is committed
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookDeleted(final BookDeletedEvent event) {
+        synchronized (this) {
+            if (writtenDuringBuild != null) {
+                writtenDuringBuild.add(event.getIsbn());
+            }
+            withdraw(index.get(event.getIsbn()));
+            index.remove(event.getIsbn());
+        }
+    }
+
+    // Indexes a streamed row unless a newer write of the same ISBN has already been applied
+    private synchronized void indexStoredBook(final Book book) {
+        if (writtenDuringBuild == null || !writtenDuringBuild.contains(Isbn.parse(book.getIsbn()))) {
+            apply(book);
+        }
+    }
+
+    // Replaces the indexed version of the book and its completions; the caller holds the monitor
+    private void apply(final Book book) {
+        withdraw(index.get(Isbn.parse(book.getIsbn())));
+        index.put(book);
+        titles.add(book.getTitle());
+        authors.add(book.getAuthor());
+    }
+
+    // Withdraws the completions of a previously indexed book; the caller holds the monitor
+    private void withdraw(final Book indexedBook) {
+        if (indexedBook != null) {
+            titles.remove(indexedBook.getTitle());
+            authors.remove(indexedBook.getAuthor());
+        }
+    }
+
+}
@@ -1,46 +1,248 @@
 package com.example.books.services.impl;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
 import java.util.stream.Collector;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.example.books.cache.BookCache;
+import com.example.books.cache.BookExistenceFilter;
+import com.example.books.cache.CatalogVersion;
 import com.example.books.domain.Book;
 import com.example.books.domain.BookEntity;
+import com.example.books.domain.BookLookupResult;
+import com.example.books.domain.BookLookupStatus;
+import com.example.books.domain.BookPage;
+import com.example.books.domain.BookSaveResult;
+import com.example.books.domain.BookSaveStatus;
+import com.example.books.domain.Isbn;
+import com.example.books.events.BookDeletedEvent;
+import com.example.books.events.BookSavedEvent;
+import com.example.books.metrics.Metered;
 import com.example.books.repositories.BookRepository;
 import com.example.books.services.BookService;
+import com.example.books.shards.BookShards;
+import com.example.books.shards.OrderedMerge;
+import com.example.books.writes.GroupCommitBuffer;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
 
 @Service
+@Metered("books.service")
 public class BookServiceImpl implements BookService{
 
+    // ISBN-13s have a fixed number of digits, so their text sorts like their number
+    private static final Comparator<Book> BY_ISBN = Comparator.comparing(Book::getIsbn);
+
+    // Books read from each shard per query when the export merges several shards
+    private static final int EXPORT_PAGE_SIZE = 1000;
+
     private final BookRepository bookRepository;
 
-    // Inject the repository into the service through the constructor
+    private final EntityManager entityManager;
+
+    private final BookCache bookCache;
+
+    private final BookExistenceFilter bookExistenceFilter;
+
+    // Hands out the revision stored with every write
+    private final CatalogVersion catalogVersion;
+
+    // Notifies the in-process structures that follow the books table of every write
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Number of books written per JDBC batch by saveAll
+    private final int batchSize;
+
+    // Groups the writes of upsert into shared transactions, or null when every upsert commits on its own
+    private final GroupCommitBuffer writeBehind;
+
+    // Picks the shard of every book and runs the work of each shard against its database
+    private final BookShards shards;
+
+    // Transactions of saveAll and of the export, started once the shard is bound
+    private final TransactionTemplate writeTransaction;
+    private final TransactionTemplate readTransaction;
+
+    // Inject the repository, the entity manager, the cache, the existence filter, the catalog version,
+    // the event publisher, the bulk batch size, the write-behind settings and the shards into the service through the constructor.
+    // With write-behind enabled, upserts are committed in groups of up to the bulk batch size.
     @Autowired
-    public BookServiceImpl(final BookRepository bookRepository){
+    public BookServiceImpl(
+        final BookRepository bookRepository,
+        final EntityManager entityManager,
+        final BookCache bookCache,
+        final BookExistenceFilter bookExistenceFilter,
+        final CatalogVersion catalogVersion,
+        final ApplicationEventPublisher eventPublisher,
+        @Value("${books.bulk.batch-size:500}") final int batchSize,
+        final PlatformTransactionManager transactionManager,
+        @Value("${books.write-behind.enabled:false}") final boolean writeBehindEnabled,
+        @Value("${books.write-behind.max-delay:5ms}") final Duration writeBehindMaxDelay,
+        @Value("${books.write-behind.capacity:10000}") final int writeBehindCapacity,
+        final BookShards shards){
         this.bookRepository = bookRepository;
+        this.entityManager = entityManager;
+        this.bookCache = bookCache;
+        this.bookExistenceFilter = bookExistenceFilter;
+        this.catalogVersion = catalogVersion;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+        this.shards = shards;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+
+        if (writeBehindEnabled) {
+            this.writeBehind = new GroupCommitBuffer(batchSize, writeBehindMaxDelay, writeBehindCapacity, this::saveAll);
+        } else {
+            this.writeBehind = null;
+        }
+    }
+
+    // Commits the upserts still waiting in the write-behind buffer
+    @PreDestroy
+    public void close() {
+        if (writeBehind != null) {
+            writeBehind.close();
+        }
     }
 
     @Override
     public Book save(final Book book){
 
-        // Create a BookEntity from the book data
+        // Create a BookEntity from the book data, under a new revision
         final BookEntity bookEntity =bookToBookEntity(book);
+        bookEntity.setRevision(catalogVersion.nextRevision());
 
-        // Save the entity to the database using the repository
-        final BookEntity savedBookEntity = bookRepository.save(bookEntity);
+        // Save the entity to the database of its shard using the repository
+        final BookEntity savedBookEntity = shards.call(shards.shardOf(bookEntity.getIsbn()), () -> bookRepository.save(bookEntity));
        
         // Convert the saved entity back to a Book object
-        return bookEntityToBook(savedBookEntity);
+        final Book savedBook = bookEntityToBook(savedBookEntity);
+
+        eventPublisher.publishEvent(new BookSavedEvent(savedBook));
+        return savedBook;
+    }
+
+    @Override
+    public BookSaveStatus upsert(final Book book){
+
+        // Wait until the group holding the write has committed, so the caller is only answered once it is durable
+        if (writeBehind != null) {
+            return awaitCommit(book);
+        }
+
+        // One round trip to the shard of the book: the repository tells us whether a previous row was replaced
+        final long isbn = Isbn.parse(book.getIsbn());
+        final long replacedBooks = shards.call(shards.shardOf(isbn), () -> bookRepository.upsert(
+            isbn, book.getAuthor(), book.getTitle(), catalogVersion.nextRevision()));
+
+        eventPublisher.publishEvent(new BookSavedEvent(book));
+        return replacedBooks > 0 ? BookSaveStatus.UPDATED : BookSaveStatus.CREATED;
+    }
+
+    private BookSaveStatus awaitCommit(final Book book){
+        try {
+            return writeBehind.submit(book).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the write of " + book.getIsbn(), e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Write of " + book.getIsbn() + " failed", e.getCause());
+        }
+    }
+
+    @Override
+    public List<BookSaveResult> saveAll(final List<Book> books){
+
+        // Keep the last write for each ISBN, in request order
+        final Map<Long, Book> booksByIsbn = new LinkedHashMap<>();
+        books.forEach(book -> booksByIsbn.put(Isbn.parse(book.getIsbn()), book));
+
+        // Every shard writes its books in a transaction of its own, all shards at the same time
+        final Map<Integer, List<Book>> booksByShard = booksByIsbn.entrySet().stream()
+            .collect(Collectors.groupingBy(entry -> shards.shardOf(entry.getKey()),
+                Collectors.mapping(Map.Entry::getValue, Collectors.toList())));
+        final Map<String, BookSaveStatus> statuses = new HashMap<>(booksByIsbn.size() * 2);
+        shards.fanOut(shard -> booksByShard.containsKey(shard)
+                ? writeTransaction.execute(status -> saveBatches(booksByShard.get(shard)))
+                : List.<BookSaveResult>of())
+            .forEach(results -> results.forEach(result -> statuses.put(result.getIsbn(), result.getStatus())));
+
+        // Report every book in request order
+        return booksByIsbn.values().stream()
+            .map(book -> new BookSaveResult(book.getIsbn(), statuses.get(book.getIsbn())))
+            .collect(Collectors.toList());
+    }
+
+    // Writes books of one shard in batches, inside the transaction of that shard
+    private List<BookSaveResult> saveBatches(final List<Book> uniqueBooks){
+        final List<BookSaveResult> results = new ArrayList<>(uniqueBooks.size());
+
+        for (int from = 0; from < uniqueBooks.size(); from += batchSize) {
+            final List<Book> batch = uniqueBooks.subList(from, Math.min(from + batchSize, uniqueBooks.size()));
+
+            // Load the books of this batch that already exist with a single IN query
+            final Map<Long, BookEntity> existingBooks = bookRepository
+                .findAllById(batch.stream().map(book -> Isbn.parse(book.getIsbn())).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(BookEntity::getIsbn, book -> book));
+
+            for (final Book book : batch) {
+                final BookEntity existingBook = existingBooks.get(Isbn.parse(book.getIsbn()));
+                if (existingBook != null) {
+                    // Managed entity: the change is picked up by dirty checking at flush time
+                    existingBook.setAuthor(book.getAuthor());
+                    existingBook.setTitle(book.getTitle());
+                    existingBook.setRevision(catalogVersion.nextRevision());
+                    eventPublisher.publishEvent(new BookSavedEvent(book));
+                    results.add(new BookSaveResult(book.getIsbn(), BookSaveStatus.UPDATED));
+                } else {
+                    // Persist instead of merge, so no extra SELECT is issued for the new ISBN
+                    final BookEntity newBook = bookToBookEntity(book);
+                    newBook.setRevision(catalogVersion.nextRevision());
+                    entityManager.persist(newBook);
+                    eventPublisher.publishEvent(new BookSavedEvent(book));
+                    results.add(new BookSaveResult(book.getIsbn(), BookSaveStatus.CREATED));
+                }
+            }
+
+            // Send the batch to the database as JDBC batches and drop it from the persistence context
+            entityManager.flush();
+            entityManager.clear();
+        }
+
+        return results;
     }
 
     // Convert a Book object to a BookEntity
     private BookEntity bookToBookEntity(Book book){
         return BookEntity.builder()
-            .isbn(book.getIsbn())
+            .isbn(Isbn.parse(book.getIsbn()))
             .title(book.getTitle())
             .author(book.getAuthor())
             .build();
@@ -49,42 +251,176 @@ public class BookServiceImpl implements BookService{
     // Convert a BookEntity to a Book object
     private Book bookEntityToBook (BookEntity bookEntity){
         return Book.builder()
-            .isbn(bookEntity.getIsbn())
+            .isbn(Isbn.format(bookEntity.getIsbn()))
             .title(bookEntity.getTitle())
             .author(bookEntity.getAuthor())
+            .revision(bookEntity.getRevision())
             .build();
     }
 
     @Override
-    public Optional<Book> findById(String ibsn) {
+    public Optional<Book> findById(final long isbn) {
 
-        // Find a book entity by its ISBN using the repository
-        final Optional<BookEntity> foundBook = bookRepository.findById(ibsn);
+        // ISBNs the filter has never seen are not stored, so there is no need to ask the database
+        if (!bookExistenceFilter.mightExist(isbn)) {
+            return Optional.empty();
+        }
 
-        // Map the found BookEntity to a Book if present
-        return foundBook.map(book -> bookEntityToBook(book));
+        // Serve the book from the cache, going to the repository only on a miss.
+        // Concurrent misses on the same ISBN share a single query.
+        return bookCache.get(isbn, key -> {
+
+            // Read the book by its ISBN straight into a Book, in a read-only transaction of its own on the shard of the book.
+            // Cache hits never open a transaction.
+            return shards.call(shards.shardOf(key), () -> bookRepository.findBookByIsbn(key));
+        });
+    }
+
+    //Finds many books by ISBN, going to the database only for the ones that are not cached.
+    @Override
+    public List<BookLookupResult> findAllById(final List<Long> isbns) {
+
+        // Skip the ISBNs the filter has never seen and ask for each of the others once
+        final Set<Long> candidates = new LinkedHashSet<>();
+        isbns.stream().filter(bookExistenceFilter::mightExist).forEach(candidates::add);
+
+        // Serve what the cache holds and load all the misses together
+        final Map<Long, Book> foundBooks = bookCache.getAll(candidates, this::loadBooks);
+
+        // Answer every requested ISBN, in request order
+        return isbns.stream()
+            .map(isbn -> {
+                final Book book = foundBooks.get(isbn);
+                return book != null
+                    ? new BookLookupResult(Isbn.format(isbn), BookLookupStatus.FOUND, book)
+                    : new BookLookupResult(Isbn.format(isbn), BookLookupStatus.MISSING, null);
+            })
+            .collect(Collectors.toList());
+    }
+
+    // Loads the books from all their shards at the same time, with one IN query per batch on each shard
+    private Map<Long, Book> loadBooks(final Set<Long> isbns) {
+        final Map<Integer, List<Long>> keysByShard = isbns.stream().collect(Collectors.groupingBy(shards::shardOf));
+        final Map<Long, Book> foundBooks = new HashMap<>(isbns.size() * 2);
+
+        shards.fanOut(shard -> loadBooks(keysByShard.getOrDefault(shard, List.of())))
+            .forEach(books -> books.forEach(book -> foundBooks.put(Isbn.parse(book.getIsbn()), book)));
+
+        return foundBooks;
+    }
+
+    // Loads the books of one shard, keeping the IN list within the bulk batch size
+    private List<Book> loadBooks(final List<Long> keys) {
+        final List<Book> foundBooks = new ArrayList<>(keys.size());
+
+        for (int from = 0; from < keys.size(); from += batchSize) {
+            foundBooks.addAll(bookRepository.findBooksByIsbnIn(keys.subList(from, Math.min(from + batchSize, keys.size()))));
+        }
+
+        return foundBooks;
     }
 
     //Retrieves a list of all books from the repository.
     @Override
     public List<Book> listBooks() {
 
-        // Retrieve all book entities from the repository
-        final List<BookEntity> foundBooks = bookRepository.findAll();
+        // Retrieve all books from every shard, built straight from the result set
+        final List<List<Book>> foundBooks = shards.fanOut(shard -> bookRepository.findAllBooks());
+        return foundBooks.size() == 1
+            ? foundBooks.get(0)
+            : foundBooks.stream().flatMap(List::stream).collect(Collectors.toList());
+    }
+
+    //Retrieves one page of books ordered by ISBN, starting after the given cursor.
+    @Override
+    public BookPage listBooks(final Long after, final int limit) {
+
+        // Seek past the cursor on the primary key of every shard, fetching one extra row to know if another page exists.
+        // The first limit + 1 books overall are among the first limit + 1 of each shard.
+        final List<Book> foundBooks = mergeByIsbn(shards.fanOut(shard -> bookRepository.findBooksByIsbnGreaterThan(
+            after == null ? 0 : after, limit + 1)), limit + 1);
+
+        final boolean hasMore = foundBooks.size() > limit;
+
+        // Drop the extra row
+        final List<Book> books = hasMore ? foundBooks.subList(0, limit) : foundBooks;
+
+        // The last ISBN of the page is the cursor for the next one
+        final String nextCursor = hasMore ? books.get(books.size() - 1).getIsbn() : null;
+
+        return new BookPage(books, nextCursor);
+    }
+
+    //Retrieves a page of the books of an author, ordered by ISBN, seeking past the cursor on the author index.
+    @Override
+    public BookPage listBooksByAuthor(final String author, final Long after, final int limit) {
+
+        // Fetch one extra row from every shard to know if another page exists, built straight from the result set
+        final List<Book> foundBooks = mergeByIsbn(shards.fanOut(shard -> bookRepository
+            .findBooksByAuthorAndIsbnGreaterThan(author, after == null ? 0 : after, limit + 1)), limit + 1);
+
+        final boolean hasMore = foundBooks.size() > limit;
+
+        // Drop the extra row
+        final List<Book> books = hasMore ? foundBooks.subList(0, limit) : foundBooks;
+
+        // The last ISBN of the page is the cursor for the next one
+        final String nextCursor = hasMore ? books.get(books.size() - 1).getIsbn() : null;
+
+        return new BookPage(books, nextCursor);
+    }
+
+    // Merges pages ordered by ISBN into one, keeping at most limit books
+    private static List<Book> mergeByIsbn(final List<List<Book>> pages, final int limit) {
+        if (pages.size() == 1) {
+            return pages.get(0);
+        }
+        final Iterator<Book> merged = OrderedMerge.merge(
+            pages.stream().map(List::iterator).collect(Collectors.toList()), BY_ISBN);
+        final List<Book> books = new ArrayList<>(limit);
+        while (books.size() < limit && merged.hasNext()) {
+            books.add(merged.next());
+        }
+        return books;
+    }
+
+    //Streams all books from the repository to the consumer without holding them in memory.
+    @Override
+    public void exportBooks(final Consumer<Book> consumer) {
+
+        if (shards.count() == 1) {
+            // The stream keeps a database cursor open, so it has to be closed once we are done
+            // Books are built straight from the result set, so the persistence context does not grow with the table
+            readTransaction.executeWithoutResult(status -> {
+                try (Stream<Book> foundBooks = bookRepository.streamAllBooks()) {
+                    foundBooks.forEach(consumer);
+                }
+            });
+            return;
+        }
 
-        // Map the list of BookEntity objects to a list of Book objects
-        return foundBooks.stream().map(book -> bookEntityToBook(book)).collect(Collectors.toList());
+        // A transaction is bound to its thread, so the shards cannot keep a cursor open each on this one.
+        // Instead every shard is read page by page along its primary key, and the pages are merged in ISBN order.
+        final List<Iterator<Book>> shardBooks = new ArrayList<>(shards.count());
+        for (int shard = 0; shard < shards.count(); shard++) {
+            final int source = shard;
+            shardBooks.add(OrderedMerge.pages(last -> shards.call(source, () -> bookRepository.findBooksByIsbnGreaterThan(
+                last == null ? 0 : Isbn.parse(last.getIsbn()), EXPORT_PAGE_SIZE))));
+        }
+        OrderedMerge.merge(shardBooks, BY_ISBN).forEachRemaining(consumer);
     }
 
     @Override
     public boolean isBookExits(Book book) {
-        return bookRepository.existsById(book.getIsbn());
+        final long isbn = Isbn.parse(book.getIsbn());
+        return shards.call(shards.shardOf(isbn), () -> bookRepository.existsById(isbn));
     }
 
     //Deletes a book from the repository based on its ISBN.
     @Override
-    public void deleteBookById(String isbn) {
-        bookRepository.deleteById(isbn);
+    public void deleteBookById(final long isbn) {
+        shards.run(shards.shardOf(isbn), () -> bookRepository.deleteById(isbn));
+        eventPublisher.publishEvent(new BookDeletedEvent(isbn));
     }
     
 
@@ -0,0 +1,179 @@
+package com.example.books.services.impl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.example.books.services.BookService;
+import com.example.books.services.CatalogSnapshotService;
+import com.example.books.snapshots.CatalogSnapshot;
+import com.example.books.snapshots.CatalogSnapshotWriter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Exports the catalog to a snapshot file and serves reads from it.
+ *
+ * A node exporting snapshots writes the whole books table to the file at a fixed interval. A serving node
+ * checks the file at its own interval and maps it again whenever it has been replaced; the new snapshot is
+ * swapped in with a single reference update, so readers never wait for a reload and keep the snapshot they
+ * started with until they are done.
+ */
+@Service
+public class CatalogSnapshotServiceImpl implements CatalogSnapshotService {
+
+    private final BookService bookService;
+
+    private final Path file;
+
+    // Time between two exports, or zero when this node does not export snapshots
+    private final Duration exportInterval;
+
+    private final boolean serving;
+
+    // Time between two checks for a new snapshot file
+    private final Duration refreshInterval;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "catalog-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicReference<CatalogSnapshot> current = new AtomicReference<>();
+
+    // Identity and modification time of the file the current snapshot was mapped from
+    private Object loadedFileKey;
+
+    private FileTime loadedModifiedTime;
+
+    private final Counter exportFailures;
+
+    private final Counter refreshFailures;
+
+    // Inject the service the books are exported through and the snapshot settings
+    @Autowired
+    public CatalogSnapshotServiceImpl(
+        final BookService bookService,
+        @Value("${books.snapshot.file:snapshots/catalog.snapshot}") final String file,
+        @Value("${books.snapshot.export-interval:0s}") final Duration exportInterval,
+        @Value("${books.snapshot.serve:false}") final boolean serving,
+        @Value("${books.snapshot.refresh-interval:10s}") final Duration refreshInterval,
+        final MeterRegistry meterRegistry){
+        this.bookService = bookService;
+        this.file = Paths.get(file).toAbsolutePath().normalize();
+        this.exportInterval = exportInterval;
+        this.serving = serving;
+        this.refreshInterval = refreshInterval;
+
+        Gauge.builder("books.snapshot.books", current, snapshot -> snapshot.get() == null ? 0 : snapshot.get().size())
+            .register(meterRegistry);
+        this.exportFailures = Counter.builder("books.snapshot.failures").tag("operation", "export").register(meterRegistry);
+        this.refreshFailures = Counter.builder("books.snapshot.failures").tag("operation", "refresh").register(meterRegistry);
+    }
+
+    // Loads the snapshot before the first request is served, then keeps exporting and refreshing in the background
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (serving) {
+            refreshQuietly();
+            scheduler.scheduleWithFixedDelay(this::refreshQuietly,
+                refreshInterval.toMillis(), refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        if (exportInterval.toMillis() > 0) {
+            scheduler.scheduleWithFixedDelay(this::exportQuietly, 0, exportInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public boolean isServing() {
+        return serving;
+    }
+
+    @Override
+    public Optional<CatalogSnapshot> current() {
+        return Optional.ofNullable(current.get());
+    }
+
+    @Override
+    public void export() {
+        try (CatalogSnapshotWriter writer = new CatalogSnapshotWriter(file)) {
+            bookService.exportBooks(book -> {
+                try {
+                    writer.append(book);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.commit();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        // A node serving its own exports does not wait for the next check
+        if (serving) {
+            refreshQuietly();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    // Maps the snapshot file again if it has been replaced since it was last mapped
+    private synchronized void refresh() throws IOException {
+        final BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return;
+        }
+        if (Objects.equals(attributes.fileKey(), loadedFileKey) && attributes.lastModifiedTime().equals(loadedModifiedTime)) {
+            return;
+        }
+
+        current.set(CatalogSnapshot.open(file));
+        loadedFileKey = attributes.fileKey();
+        loadedModifiedTime = attributes.lastModifiedTime();
+    }
+
+    // Failures are counted and the previous snapshot stays in place, so a bad run does not stop later ones
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (IOException | RuntimeException e) {
+            refreshFailures.increment();
+        }
+    }
+
+    private void exportQuietly() {
+        try {
+            export();
+        } catch (RuntimeException e) {
+            exportFailures.increment();
+        }
+    }
+
+}
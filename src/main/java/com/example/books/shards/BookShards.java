@@ -0,0 +1,205 @@
+package com.example.books.shards;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.books.metrics.SqlStatementCounter;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Hash partitioning of the books over the configured number of shards, each a database of its own.
+ *
+ * A book lives on the shard picked by a stable hash of its ISBN-13. Work runs against one shard by binding
+ * the shard to the thread for its duration: ShardRoutingDataSource hands out the connections of the bound
+ * shard, so every repository call and every transaction started inside the work goes to that database.
+ * A transaction keeps the connection it began with, so shard work has to start outside any transaction
+ * that is already running against another shard.
+ *
+ * With a single shard, the default, there is no routing data source and the work simply runs.
+ */
+@Component
+public class BookShards {
+
+    // Shard bound to the current thread, null outside shard work
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private final int count;
+
+    // Runs the fan-out work of each shard, by shard, or null with a single shard
+    private final List<ExecutorService> executors;
+
+    @Autowired
+    public BookShards(
+        @Value("${books.shards.count:1}") final int count,
+        @Value("${books.shards.pool-size:10}") final int poolSize) {
+        if (count < 1) {
+            throw new IllegalArgumentException("The number of shards must be at least 1, not " + count);
+        }
+        if (poolSize < 1) {
+            throw new IllegalArgumentException("The pool size of a shard must be at least 1, not " + poolSize);
+        }
+        this.count = count;
+        if (count == 1) {
+            this.executors = null;
+            return;
+        }
+
+        // As many threads per shard as it has connections, so concurrent fan-outs only queue once a shard is saturated
+        final List<ExecutorService> perShard = new ArrayList<>(count);
+        for (int shard = 0; shard < count; shard++) {
+            final String name = "book-shard-" + shard;
+            perShard.add(Executors.newFixedThreadPool(poolSize, runnable -> {
+                final Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            }));
+        }
+        this.executors = perShard;
+    }
+
+    @PreDestroy
+    public void close() {
+        if (executors != null) {
+            executors.forEach(ExecutorService::shutdownNow);
+        }
+    }
+
+    // Shard bound to the current thread, or null outside shard work
+    static Integer current() {
+        return CURRENT.get();
+    }
+
+    // Number of shards
+    public int count() {
+        return count;
+    }
+
+    /**
+     * Returns the shard of a book. The placement of stored books depends on it and on the number of shards,
+     * so neither can change without moving the books.
+     *
+     * @param isbn The ISBN-13 of the book.
+     * @return The shard, from 0 to the number of shards minus one.
+     */
+    public int shardOf(final long isbn) {
+        // Multiply by the golden ratio and fold the high bits in, so consecutive ISBNs spread over all shards
+        final long h = isbn * 0x9E3779B97F4A7C15L;
+        return (int) Long.remainderUnsigned(h ^ (h >>> 32), count);
+    }
+
+    /**
+     * Runs work against one shard on the current thread.
+     *
+     * @param shard The shard.
+     * @param work The work, which starts its own transactions.
+     * @return The result of the work.
+     * @throws IllegalStateException If a transaction against another shard is running on the thread.
+     */
+    public <T> T call(final int shard, final Supplier<T> work) {
+        final Integer previous = CURRENT.get();
+        if (count > 1 && !Objects.equals(previous, shard) && TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Work on shard " + shard + " cannot join the transaction running on shard " + previous);
+        }
+
+        CURRENT.set(shard);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    // Runs work against one shard on the current thread
+    public void run(final int shard, final Runnable work) {
+        call(shard, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs work against every shard and waits for all of them. With several shards, the calling thread
+     * runs the work of one shard itself while the work of the others runs on the threads of their shards,
+     * which count their SQL statements into the counter of the calling thread.
+     *
+     * @param work The work, given the shard it runs against.
+     * @return The results of the work, by shard; results may be null.
+     * @throws RuntimeException The exception of the first shard that failed, once every shard has finished.
+     */
+    public <T> List<T> fanOut(final IntFunction<T> work) {
+        if (executors == null) {
+            return Collections.singletonList(call(0, () -> work.apply(0)));
+        }
+
+        // A thread already bound to a shard or a transaction cannot run shard work itself, so all of it is handed off.
+        // Otherwise the caller takes a shard picked by its thread id, which spreads concurrent callers over the shards.
+        final int local = CURRENT.get() == null && !TransactionSynchronizationManager.isActualTransactionActive()
+            ? (int) (Thread.currentThread().getId() % count)
+            : -1;
+
+        final AtomicInteger statements = SqlStatementCounter.current();
+        final List<Future<T>> futures = new ArrayList<>(count);
+        for (int shard = 0; shard < count; shard++) {
+            final int target = shard;
+            futures.add(shard == local ? null : executors.get(shard).submit(
+                () -> SqlStatementCounter.countInto(statements, () -> call(target, () -> work.apply(target)))));
+        }
+
+        T localResult = null;
+        RuntimeException failure = null;
+        if (local >= 0) {
+            try {
+                localResult = call(local, () -> work.apply(local));
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+        }
+
+        final List<T> results = new ArrayList<>(count);
+        for (int shard = 0; shard < count; shard++) {
+            if (shard == local) {
+                results.add(localResult);
+                continue;
+            }
+            try {
+                results.add(futures.get(shard).get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.stream().filter(Objects::nonNull).forEach(future -> future.cancel(true));
+                throw new IllegalStateException("Interrupted while waiting for shard " + shard, e);
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException runtimeException
+                        ? runtimeException
+                        : new IllegalStateException("Work on shard " + shard + " failed", e.getCause());
+                }
+                results.add(null);
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+        return results;
+    }
+
+}
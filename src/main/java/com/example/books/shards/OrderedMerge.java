@@ -0,0 +1,104 @@
+package com.example.books.shards;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+/**
+ * Merges the ordered results of several shards into one order.
+ *
+ * The merge keeps the next item of every source in a heap, so it holds one item per shard and takes
+ * log(shards) comparisons per item, however long the sources are. Sources are only advanced when the
+ * merged iterator is, so paged sources fetch their next page only once the previous one is used up.
+ */
+public final class OrderedMerge {
+
+    private OrderedMerge() {
+    }
+
+    /**
+     * Merges ordered sources.
+     *
+     * @param sources The sources, each ordered by the comparator.
+     * @param comparator The order of the sources and of the result.
+     * @return An iterator over the items of all sources, in order.
+     */
+    public static <T> Iterator<T> merge(final List<? extends Iterator<? extends T>> sources, final Comparator<? super T> comparator) {
+        if (sources.size() == 1) {
+            @SuppressWarnings("unchecked")
+            final Iterator<T> source = (Iterator<T>) sources.get(0);
+            return source;
+        }
+
+        final PriorityQueue<Head<T>> heads = new PriorityQueue<>(Math.max(sources.size(), 1),
+            (a, b) -> comparator.compare(a.item(), b.item()));
+        for (final Iterator<? extends T> source : sources) {
+            if (source.hasNext()) {
+                heads.add(new Head<>(source.next(), source));
+            }
+        }
+
+        return new Iterator<T>() {
+            @Override
+            public boolean hasNext() {
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public T next() {
+                final Head<T> head = heads.poll();
+                if (head == null) {
+                    throw new NoSuchElementException();
+                }
+                if (head.source().hasNext()) {
+                    heads.add(new Head<>(head.source().next(), head.source()));
+                }
+                return head.item();
+            }
+        };
+    }
+
+    /**
+     * Iterates the items of consecutive pages. The first page is asked for with null, every following
+     * one with the last item of the previous page, until a page comes back empty.
+     *
+     * @param pageAfter Returns the page following an item.
+     * @return An iterator over the items of all pages.
+     */
+    public static <T> Iterator<T> pages(final Function<T, List<T>> pageAfter) {
+        return new Iterator<T>() {
+
+            private Iterator<T> page;
+
+            private T last;
+
+            private boolean exhausted;
+
+            @Override
+            public boolean hasNext() {
+                while (!exhausted && (page == null || !page.hasNext())) {
+                    final List<T> next = pageAfter.apply(last);
+                    exhausted = next.isEmpty();
+                    page = next.iterator();
+                }
+                return !exhausted;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                last = page.next();
+                return last;
+            }
+        };
+    }
+
+    private record Head<T>(T item, Iterator<? extends T> source) {
+    }
+
+}
@@ -0,0 +1,44 @@
+package com.example.books.shards;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Data source handing out the connections of the shard that BookShards has bound to the current thread.
+ * Outside shard work, as when Hibernate inspects the database at startup, it falls back to the first shard.
+ */
+class ShardRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private final List<HikariDataSource> shards;
+
+    ShardRoutingDataSource(final List<HikariDataSource> shards) {
+        this.shards = shards;
+
+        final Map<Object, Object> targets = new HashMap<>();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            targets.put(shard, shards.get(shard));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shards.get(0));
+
+        // A bound shard without a data source is a bug, not a reason to use the first shard
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return BookShards.current();
+    }
+
+    // Closes the connection pools of the shards with the application context
+    @Override
+    public void close() {
+        shards.forEach(HikariDataSource::close);
+    }
+
+}
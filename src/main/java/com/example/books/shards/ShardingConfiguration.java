@@ -0,0 +1,66 @@
+package com.example.books.shards;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Sharded storage, active when books.shards.count is above 1.
+ *
+ * Replaces the single data source with one connection pool per shard behind a ShardRoutingDataSource.
+ * The URL of each shard is books.shards.url with {shard} replaced by its number, and each pool holds
+ * books.shards.pool-size connections, as many as BookShards has threads for the shard. Hibernate would only
+ * create the schema on the connection it inspects at startup, so every shard gets db/books-schema.sql
+ * instead and Hibernate leaves the schema alone.
+ */
+@Configuration
+@ConditionalOnExpression("${books.shards.count:1} > 1")
+public class ShardingConfiguration {
+
+    @Bean
+    public DataSource dataSource(
+        @Value("${books.shards.count}") final int count,
+        @Value("${books.shards.url}") final String url,
+        @Value("${books.shards.pool-size:10}") final int poolSize,
+        @Value("${spring.datasource.username:sa}") final String username,
+        @Value("${spring.datasource.password:}") final String password) {
+
+        final ResourceDatabasePopulator schema = new ResourceDatabasePopulator(new ClassPathResource("db/books-schema.sql"));
+
+        final List<HikariDataSource> shards = new ArrayList<>(count);
+        for (int shard = 0; shard < count; shard++) {
+            final HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(url.replace("{shard}", String.valueOf(shard)))
+                .username(username)
+                .password(password)
+                .build();
+            dataSource.setPoolName("books-shard-" + shard);
+            dataSource.setMaximumPoolSize(poolSize);
+            shards.add(dataSource);
+            DatabasePopulatorUtils.execute(schema, dataSource);
+        }
+
+        return new ShardRoutingDataSource(shards);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer shardedSchemaCustomizer() {
+        return properties -> properties.put(AvailableSettings.HBM2DDL_AUTO, "none");
+    }
+
+}
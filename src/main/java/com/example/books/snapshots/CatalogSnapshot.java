@@ -0,0 +1,201 @@
+package com.example.books.snapshots;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import com.example.books.domain.Book;
+import com.example.books.domain.BookPage;
+import com.example.books.domain.Isbn;
+
+/**
+ * Read-only catalog served from a memory-mapped snapshot file, as written by CatalogSnapshotWriter.
+ *
+ * The file holds a header, a heap with the author and title of every book, and an index of fixed-width
+ * entries sorted by ISBN, each with the ISBN, the revision and the offset of the strings in the heap:
+ *
+ *   header  magic, format version, book count, creation time, index offset, heap segment shift
+ *   heap    per book: author length, author bytes, title length, title bytes (UTF-8, length 0xFFFF for null)
+ *   index   per book: ISBN, revision (0 for none), heap offset
+ *
+ * Lookups binary search the index and decode the fields straight from the mapped file, so the heap only
+ * holds the books being returned, whatever the size of the catalog. The heap is mapped in segments that
+ * no record crosses, so a catalog is not limited to the 2 GB of a single mapping.
+ *
+ * Instances are immutable and safe to share between threads. The mappings are released once the
+ * instance is garbage collected.
+ */
+public final class CatalogSnapshot {
+
+    static final int MAGIC = 0x424B534E;
+
+    static final int FORMAT_VERSION = 1;
+
+    static final int HEADER_SIZE = 40;
+
+    static final int INDEX_ENTRY_SIZE = 24;
+
+    // Length written in place of a null string
+    static final int NULL_LENGTH = 0xFFFF;
+
+    private final int count;
+
+    private final long createdAt;
+
+    private final ByteBuffer index;
+
+    private final ByteBuffer[] segments;
+
+    private final int segmentShift;
+
+    private final long segmentMask;
+
+    private CatalogSnapshot(final int count, final long createdAt, final ByteBuffer index, final ByteBuffer[] segments, final int segmentShift) {
+        this.count = count;
+        this.createdAt = createdAt;
+        this.index = index;
+        this.segments = segments;
+        this.segmentShift = segmentShift;
+        this.segmentMask = (1L << segmentShift) - 1;
+    }
+
+    /**
+     * Maps a snapshot file.
+     *
+     * @param file The snapshot file.
+     * @return The snapshot, which stays valid if the file is replaced or deleted afterwards.
+     * @throws IOException If the file cannot be read or is not a complete snapshot.
+     */
+    public static CatalogSnapshot open(final Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new IOException("Snapshot " + file + " is truncated");
+            }
+
+            final ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != FORMAT_VERSION) {
+                throw new IOException("File " + file + " is not a catalog snapshot of version " + FORMAT_VERSION);
+            }
+            final long count = header.getLong(8);
+            final long createdAt = header.getLong(16);
+            final long indexOffset = header.getLong(24);
+            final int segmentShift = header.getInt(32);
+
+            final long indexLength = count * INDEX_ENTRY_SIZE;
+            if (indexLength > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot " + file + " has more books than fit in one index mapping");
+            }
+            if (indexOffset < HEADER_SIZE || indexOffset + indexLength != size) {
+                throw new IOException("Snapshot " + file + " is truncated");
+            }
+            final ByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, indexOffset, indexLength);
+
+            // The heap lies between the header and the index
+            final long heapLength = indexOffset - HEADER_SIZE;
+            final long segmentSize = 1L << segmentShift;
+            final ByteBuffer[] segments = new ByteBuffer[(int) ((heapLength + segmentSize - 1) / segmentSize)];
+            for (int i = 0; i < segments.length; i++) {
+                final long start = i * segmentSize;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + start, Math.min(segmentSize, heapLength - start));
+            }
+
+            return new CatalogSnapshot((int) count, createdAt, index, segments, segmentShift);
+        }
+    }
+
+    // Number of books in the snapshot
+    public int size() {
+        return count;
+    }
+
+    // Milliseconds since the epoch when the snapshot was written
+    public long createdAt() {
+        return createdAt;
+    }
+
+    /**
+     * Finds a book by ISBN.
+     *
+     * @param isbn The ISBN-13.
+     * @return The book, or empty if the snapshot does not hold it.
+     */
+    public Optional<Book> find(final long isbn) {
+        final int entry = lowerBound(isbn);
+        return entry < count && isbn(entry) == isbn ? Optional.of(book(entry)) : Optional.empty();
+    }
+
+    /**
+     * Lists the books ordered by ISBN, starting after a cursor.
+     *
+     * @param after The ISBN-13 the page starts after, or null for the first page.
+     * @param limit The maximum number of books of the page.
+     * @return The page, with the cursor of the next page if more books follow.
+     */
+    public BookPage page(final Long after, final int limit) {
+        final int from = after == null ? 0 : lowerBound(after + 1);
+        final int to = (int) Math.min((long) from + limit, count);
+
+        final List<Book> books = new ArrayList<>(Math.max(to - from, 0));
+        for (int entry = from; entry < to; entry++) {
+            books.add(book(entry));
+        }
+
+        final String nextCursor = to < count && !books.isEmpty() ? books.get(books.size() - 1).getIsbn() : null;
+        return new BookPage(books, nextCursor);
+    }
+
+    // First index entry whose ISBN is not below the given one
+    private int lowerBound(final long isbn) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (isbn(middle) < isbn) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private long isbn(final int entry) {
+        return index.getLong(entry * INDEX_ENTRY_SIZE);
+    }
+
+    // Decodes the book of an index entry; only absolute reads are used, so the buffers are never modified
+    private Book book(final int entry) {
+        final long revision = index.getLong(entry * INDEX_ENTRY_SIZE + 8);
+        final long heapOffset = index.getLong(entry * INDEX_ENTRY_SIZE + 16);
+
+        final ByteBuffer segment = segments[(int) (heapOffset >>> segmentShift)];
+        final int authorAt = (int) (heapOffset & segmentMask);
+        final int authorLength = Short.toUnsignedInt(segment.getShort(authorAt));
+        final int titleAt = authorAt + 2 + (authorLength == NULL_LENGTH ? 0 : authorLength);
+
+        return Book.builder()
+            .isbn(Isbn.format(isbn(entry)))
+            .author(string(segment, authorAt))
+            .title(string(segment, titleAt))
+            .revision(revision == 0 ? null : revision)
+            .build();
+    }
+
+    private static String string(final ByteBuffer segment, final int at) {
+        final int length = Short.toUnsignedInt(segment.getShort(at));
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        segment.get(at + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
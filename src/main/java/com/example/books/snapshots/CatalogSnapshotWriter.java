@@ -0,0 +1,190 @@
+package com.example.books.snapshots;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import com.example.books.domain.Book;
+import com.example.books.domain.Isbn;
+
+/**
+ * Writes a catalog snapshot in the format read by CatalogSnapshot.
+ *
+ * Books are appended in ISBN order. The heap is written to a temporary file next to the target as the
+ * books arrive and the index to a second one, so memory use does not depend on the size of the catalog.
+ * On commit the index is appended to the heap, the header is filled in and the file is moved over the
+ * target in one step, so readers see either the previous snapshot or the complete new one.
+ */
+public class CatalogSnapshotWriter implements Closeable {
+
+    // Heap segments of 1 GB
+    private static final int DEFAULT_SEGMENT_SHIFT = 30;
+
+    private final Path target;
+
+    private final Path heapFile;
+
+    private final Path indexFile;
+
+    private final FileChannel heapChannel;
+
+    private final DataOutputStream heap;
+
+    private final DataOutputStream index;
+
+    private final long segmentSize;
+
+    private final int segmentShift;
+
+    // Offset in the heap of the next record
+    private long heapPosition;
+
+    private long count;
+
+    private long lastIsbn = -1;
+
+    private boolean committed;
+
+    public CatalogSnapshotWriter(final Path target) throws IOException {
+        this(target, DEFAULT_SEGMENT_SHIFT);
+    }
+
+    // Smaller segments let tests cover records that would cross a segment boundary
+    CatalogSnapshotWriter(final Path target, final int segmentShift) throws IOException {
+        this.target = target.toAbsolutePath();
+        this.segmentShift = segmentShift;
+        this.segmentSize = 1L << segmentShift;
+
+        Files.createDirectories(this.target.getParent());
+        this.heapFile = Files.createTempFile(this.target.getParent(), this.target.getFileName().toString(), ".heap");
+        this.indexFile = Files.createTempFile(this.target.getParent(), this.target.getFileName().toString(), ".index");
+
+        // The heap starts after the header, which is written on commit
+        this.heapChannel = FileChannel.open(heapFile, StandardOpenOption.WRITE, StandardOpenOption.READ);
+        this.heapChannel.position(CatalogSnapshot.HEADER_SIZE);
+        this.heap = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(heapChannel), 1 << 16));
+        this.index = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexFile), 1 << 16));
+    }
+
+    /**
+     * Appends a book to the snapshot.
+     *
+     * @param book The book, whose ISBN must sort after the ISBN of the previous one.
+     * @throws IOException If the temporary files cannot be written.
+     * @throws IllegalArgumentException If the book is out of order, its author or title is longer than 65534 bytes,
+     *         or it does not fit in a heap segment.
+     */
+    public void append(final Book book) throws IOException {
+        final long isbn = Isbn.parse(book.getIsbn());
+        if (isbn <= lastIsbn) {
+            throw new IllegalArgumentException("Book " + book.getIsbn() + " is out of ISBN order");
+        }
+        final byte[] author = bytes(book.getAuthor());
+        final byte[] title = bytes(book.getTitle());
+
+        // Records never cross a segment boundary, so each one is decoded from a single mapping
+        final long recordLength = 4L + length(author) + length(title);
+        if (recordLength > segmentSize) {
+            throw new IllegalArgumentException("Book " + book.getIsbn() + " does not fit in a heap segment");
+        }
+        final long segmentEnd = (heapPosition | (segmentSize - 1)) + 1;
+        if (heapPosition + recordLength > segmentEnd) {
+            heap.write(new byte[(int) (segmentEnd - heapPosition)]);
+            heapPosition = segmentEnd;
+        }
+
+        index.writeLong(isbn);
+        index.writeLong(book.getRevision() == null ? 0 : book.getRevision());
+        index.writeLong(heapPosition);
+
+        write(author);
+        write(title);
+        heapPosition += recordLength;
+
+        lastIsbn = isbn;
+        count++;
+    }
+
+    /**
+     * Completes the snapshot and moves it over the target file.
+     *
+     * @throws IOException If the snapshot cannot be written or moved.
+     */
+    public void commit() throws IOException {
+        heap.flush();
+        index.close();
+
+        // Append the index after the heap
+        final long indexOffset = CatalogSnapshot.HEADER_SIZE + heapPosition;
+        try (FileChannel indexChannel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            final long indexLength = indexChannel.size();
+            for (long copied = 0; copied < indexLength; ) {
+                copied += indexChannel.transferTo(copied, indexLength - copied, heapChannel.position(indexOffset + copied));
+            }
+        }
+
+        final ByteBuffer header = ByteBuffer.allocate(CatalogSnapshot.HEADER_SIZE)
+            .putInt(CatalogSnapshot.MAGIC)
+            .putInt(CatalogSnapshot.FORMAT_VERSION)
+            .putLong(count)
+            .putLong(System.currentTimeMillis())
+            .putLong(indexOffset)
+            .putInt(segmentShift)
+            .putInt(0)
+            .flip();
+        while (header.hasRemaining()) {
+            heapChannel.write(header, header.position());
+        }
+        heapChannel.force(true);
+        heap.close();
+
+        Files.move(heapFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        committed = true;
+        Files.deleteIfExists(indexFile);
+    }
+
+    // Drops the temporary files, unless the snapshot has been committed
+    @Override
+    public void close() throws IOException {
+        heap.close();
+        index.close();
+        Files.deleteIfExists(indexFile);
+        if (!committed) {
+            Files.deleteIfExists(heapFile);
+        }
+    }
+
+    private void write(final byte[] bytes) throws IOException {
+        if (bytes == null) {
+            heap.writeShort(CatalogSnapshot.NULL_LENGTH);
+        } else {
+            heap.writeShort(bytes.length);
+            heap.write(bytes);
+        }
+    }
+
+    private static int length(final byte[] bytes) {
+        return bytes == null ? 0 : bytes.length;
+    }
+
+    private static byte[] bytes(final String text) {
+        if (text == null) {
+            return null;
+        }
+        final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length >= CatalogSnapshot.NULL_LENGTH) {
+            throw new IllegalArgumentException("Text of " + bytes.length + " bytes does not fit in a snapshot");
+        }
+        return bytes;
+    }
+
+}
@@ -0,0 +1,242 @@
+package com.example.books.writes;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+import com.example.books.domain.Book;
+import com.example.books.domain.BookSaveResult;
+import com.example.books.domain.BookSaveStatus;
+import com.example.books.metrics.SqlStatementCounter;
+
+/**
+ * Buffers single book writes and commits them in groups, so a burst of writes pays for one
+ * transaction per group instead of one per write.
+ *
+ * A group is committed once it holds the maximum number of books, or once its oldest write has
+ * waited for the maximum delay, whichever comes first. Writes to an ISBN that is already waiting
+ * replace the waiting book, so only the last one is written. Each write is acknowledged through its
+ * future only after the group holding it has committed; if the commit fails, every write of the
+ * group fails with it. Before that, the SQL statements of the commit are added to the statement
+ * counter of every writer in the group, as the statements its write waited for.
+ *
+ * The buffer holds at most its capacity of distinct ISBNs; further writes block until a group has
+ * been taken out, which pushes back on the writers instead of growing without bound.
+ */
+public class GroupCommitBuffer implements AutoCloseable {
+
+    private final int maxBatchSize;
+
+    private final long maxDelayNanos;
+
+    private final int capacity;
+
+    // Writes the books of a group in one transaction, reporting the outcome per ISBN
+    private final Function<List<Book>, List<BookSaveResult>> committer;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Signalled when a write arrives, and when the buffer is closed
+    private final Condition notEmpty = lock.newCondition();
+
+    // Signalled when a group is taken out of the buffer
+    private final Condition notFull = lock.newCondition();
+
+    // Waiting writes by ISBN, in the order the ISBNs were first written
+    private final LinkedHashMap<String, PendingWrite> pending = new LinkedHashMap<>();
+
+    // When the oldest waiting write arrived
+    private long oldestNanos;
+
+    private boolean closed;
+
+    private final Thread flusher;
+
+    public GroupCommitBuffer(
+        final int maxBatchSize,
+        final Duration maxDelay,
+        final int capacity,
+        final Function<List<Book>, List<BookSaveResult>> committer) {
+        if (maxBatchSize < 1 || capacity < maxBatchSize) {
+            throw new IllegalArgumentException(
+                "Expected 1 <= maxBatchSize <= capacity, got " + maxBatchSize + ", " + capacity);
+        }
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.capacity = capacity;
+        this.committer = committer;
+
+        this.flusher = new Thread(this::run, "book-group-commit");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Queues a book to be written with the next group.
+     *
+     * @param book The book to write.
+     * @return A future completed with CREATED or UPDATED once the group holding the write has committed.
+     *         A write that replaced a waiting write to the same ISBN is reported as UPDATED.
+     * @throws InterruptedException If interrupted while waiting for room in the buffer.
+     */
+    public CompletableFuture<BookSaveStatus> submit(final Book book) throws InterruptedException {
+        final CompletableFuture<BookSaveStatus> acknowledgement = new CompletableFuture<>();
+
+        lock.lockInterruptibly();
+        try {
+            final PendingWrite waiting = pending.get(book.getIsbn());
+            if (waiting != null) {
+                waiting.book = book;
+                waiting.replacedWrites.add(acknowledgement);
+                waiting.statementCounters.add(SqlStatementCounter.current());
+                return acknowledgement;
+            }
+
+            while (pending.size() >= capacity && !closed) {
+                notFull.await();
+            }
+            if (closed) {
+                throw new IllegalStateException("Group commit buffer is closed");
+            }
+
+            if (pending.isEmpty()) {
+                oldestNanos = System.nanoTime();
+            }
+            pending.put(book.getIsbn(), new PendingWrite(book, acknowledgement, SqlStatementCounter.current()));
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+        return acknowledgement;
+    }
+
+    // Commits the writes still waiting and stops the flusher thread. If interrupted while waiting for
+    // the flusher, returns with the interrupt flag set and leaves the flusher to drain on its own.
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signal();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        while (true) {
+            final List<PendingWrite> group;
+            try {
+                group = takeGroup();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (group == null) {
+                return;
+            }
+            commit(group);
+        }
+    }
+
+    // Waits until a group is due, then takes it out of the buffer; null once closed and drained
+    private List<PendingWrite> takeGroup() throws InterruptedException {
+        lock.lock();
+        try {
+            while (true) {
+                if (pending.isEmpty()) {
+                    if (closed) {
+                        return null;
+                    }
+                    notEmpty.await();
+                    continue;
+                }
+
+                final long waitNanos = oldestNanos + maxDelayNanos - System.nanoTime();
+                if (pending.size() >= maxBatchSize || waitNanos <= 0 || closed) {
+                    break;
+                }
+                notEmpty.awaitNanos(Math.min(waitNanos, TimeUnit.MILLISECONDS.toNanos(100)));
+            }
+
+            final List<PendingWrite> group = new ArrayList<>(Math.min(pending.size(), maxBatchSize));
+            final Iterator<PendingWrite> writes = pending.values().iterator();
+            while (writes.hasNext() && group.size() < maxBatchSize) {
+                group.add(writes.next());
+                writes.remove();
+            }
+
+            // The writes left behind start a new group now
+            oldestNanos = System.nanoTime();
+            notFull.signalAll();
+            return group;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void commit(final List<PendingWrite> group) {
+        final List<Book> books = new ArrayList<>(group.size());
+        group.forEach(write -> books.add(write.book));
+
+        final Map<String, BookSaveStatus> statuses = new LinkedHashMap<>();
+        SqlStatementCounter.reset();
+        try {
+            committer.apply(books).forEach(result -> statuses.put(result.getIsbn(), result.getStatus()));
+        } catch (RuntimeException | Error e) {
+            final int statements = SqlStatementCounter.count();
+            group.forEach(write -> write.fail(statements, e));
+            return;
+        }
+
+        final int statements = SqlStatementCounter.count();
+        group.forEach(write -> write.complete(statements, statuses.get(write.book.getIsbn())));
+    }
+
+    // The latest book written to an ISBN and the writes waiting for it to commit
+    private static final class PendingWrite {
+
+        private Book book;
+
+        private final CompletableFuture<BookSaveStatus> firstWrite;
+
+        private final List<CompletableFuture<BookSaveStatus>> replacedWrites = new ArrayList<>(0);
+
+        // The statement counters of the writers, the first writer's first
+        private final List<AtomicInteger> statementCounters = new ArrayList<>(1);
+
+        private PendingWrite(final Book book, final CompletableFuture<BookSaveStatus> firstWrite, final AtomicInteger statementCounter) {
+            this.book = book;
+            this.firstWrite = firstWrite;
+            this.statementCounters.add(statementCounter);
+        }
+
+        // The first write learns whether the ISBN existed; the writes after it updated what it wrote
+        private void complete(final int statements, final BookSaveStatus status) {
+            statementCounters.forEach(counter -> counter.addAndGet(statements));
+            firstWrite.complete(status);
+            replacedWrites.forEach(write -> write.complete(BookSaveStatus.UPDATED));
+        }
+
+        private void fail(final int statements, final Throwable cause) {
+            statementCounters.forEach(counter -> counter.addAndGet(statements));
+            firstWrite.completeExceptionally(cause);
+            replacedWrites.forEach(write -> write.completeExceptionally(cause));
+        }
+    }
+
+}
@@ -0,0 +1,4 @@
+-- Adds the index behind GET /authors/{author}/books to an existing books table.
+-- New databases get it from the schema Hibernate generates for BookEntity.
+
+CREATE INDEX IF NOT EXISTS books_author_isbn_idx ON books (author, isbn);
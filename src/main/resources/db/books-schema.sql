@@ -0,0 +1,11 @@
+-- Schema of the books table, applied to every shard in sharded mode, where Hibernate does not manage the schema.
+-- Matches the table Hibernate generates for BookEntity.
+
+CREATE TABLE IF NOT EXISTS books (
+    isbn BIGINT NOT NULL PRIMARY KEY,
+    author VARCHAR(255),
+    title VARCHAR(255),
+    revision BIGINT
+);
+
+CREATE INDEX IF NOT EXISTS books_author_isbn_idx ON books (author, isbn);
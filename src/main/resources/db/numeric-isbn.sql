@@ -0,0 +1,37 @@
+-- Migrates a books table keyed by ISBN text to one keyed by the ISBN-13 as a BIGINT.
+-- Run once against an existing H2 database, with the application classes on its classpath, before starting
+-- the version that stores numeric ISBNs. Rows that cannot be migrated are kept in books_rejected.
+
+CREATE ALIAS IF NOT EXISTS NORMALIZE_ISBN FOR 'com.example.books.domain.Isbn.parseOrNull';
+
+CREATE TABLE IF NOT EXISTS books_rejected (
+    isbn VARCHAR(255),
+    author VARCHAR(255),
+    title VARCHAR(255),
+    revision BIGINT,
+    reason VARCHAR(255)
+);
+
+-- Rows whose key is not a valid ISBN-10 or ISBN-13
+INSERT INTO books_rejected (isbn, author, title, revision, reason)
+    SELECT isbn, author, title, revision, 'Invalid ISBN' FROM books WHERE NORMALIZE_ISBN(isbn) IS NULL;
+DELETE FROM books WHERE NORMALIZE_ISBN(isbn) IS NULL;
+
+ALTER TABLE books ADD COLUMN isbn_number BIGINT;
+UPDATE books SET isbn_number = NORMALIZE_ISBN(isbn);
+
+-- Spellings of the same ISBN, such as its ISBN-10 and ISBN-13, collapse into the row with the latest revision
+INSERT INTO books_rejected (isbn, author, title, revision, reason)
+    SELECT b.isbn, b.author, b.title, b.revision, 'Duplicate ISBN' FROM books b WHERE EXISTS (
+        SELECT 1 FROM books o WHERE o.isbn_number = b.isbn_number
+            AND (COALESCE(o.revision, 0) > COALESCE(b.revision, 0)
+                OR (COALESCE(o.revision, 0) = COALESCE(b.revision, 0) AND o.isbn > b.isbn)));
+DELETE FROM books WHERE isbn IN (SELECT isbn FROM books_rejected WHERE reason = 'Duplicate ISBN');
+
+ALTER TABLE books DROP PRIMARY KEY;
+ALTER TABLE books DROP COLUMN isbn;
+ALTER TABLE books ALTER COLUMN isbn_number RENAME TO isbn;
+ALTER TABLE books ALTER COLUMN isbn SET NOT NULL;
+ALTER TABLE books ADD PRIMARY KEY (isbn);
+
+DROP ALIAS NORMALIZE_ISBN;
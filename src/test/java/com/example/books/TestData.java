@@ -22,7 +22,7 @@ public final class TestData {
     public static Book testBook(){
 
         return Book.builder()
-        .isbn("0099572958")
+        .isbn("9780099572954")
         .author("Frances Hodgson Burnett")
         .title("The Secret Garden")
         .build();
@@ -37,7 +37,7 @@ public final class TestData {
      */
     public static BookEntity testBookEntity(){
         return BookEntity.builder()
-        .isbn("0099572958")
+        .isbn(9780099572954L)
         .author("Frances Hodgson Burnett")
         .title("The Secret Garden")
         .build();
@@ -0,0 +1,73 @@
+package com.example.books.authors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.books.domain.AuthorCount;
+import com.example.books.domain.AuthorPage;
+
+/**
+ * Unit test for the AuthorCounts class.
+ * Checks that rewrites and deletes move books out of the count of their previous author, and paging by name.
+ */
+public class AuthorCountsTest {
+
+    private final AuthorCounts underTest = new AuthorCounts();
+
+    // Test to ensure that a book is counted once, under the author it was last written with.
+    @Test
+    public void testThatRewrittenBookMovesToItsNewAuthor(){
+        underTest.put(9780000000019L, "Austen");
+        underTest.put(9780000000026L, "Austen");
+        underTest.put(9780000000026L, "Austen");
+        assertEquals(2, underTest.count("Austen"));
+
+        underTest.put(9780000000026L, "Bronte");
+        assertEquals(1, underTest.count("Austen"));
+        assertEquals(1, underTest.count("Bronte"));
+        assertEquals(2, underTest.books());
+    }
+
+    // Test to ensure that authors whose last book is deleted disappear, and books without an author are not counted.
+    @Test
+    public void testThatDeletedBooksAreNoLongerCounted(){
+        underTest.put(9780000000019L, "Austen");
+        underTest.put(9780000000026L, null);
+
+        underTest.remove(9780000000019L);
+        underTest.remove(9780000000026L);
+        underTest.remove(9781234567897L);
+
+        assertEquals(0, underTest.count("Austen"));
+        assertEquals(0, underTest.books());
+        assertEquals(List.of(), underTest.page(null, 10).getAuthors());
+
+        // The number of the removed author is reused without mixing up the counts
+        underTest.put(9780000000033L, "Bronte");
+        underTest.put(9780000000019L, "Austen");
+        underTest.remove(9780000000033L);
+        assertEquals(List.of(new AuthorCount("Austen", 1)), underTest.page(null, 10).getAuthors());
+    }
+
+    // Test to ensure that authors are paged in name order with a cursor on the last name of the page.
+    @Test
+    public void testThatAuthorsArePagedByName(){
+        underTest.put(9780000000019L, "Dickens");
+        underTest.put(9780000000026L, "Austen");
+        underTest.put(9780000000033L, "Bronte");
+        underTest.put(9780099572954L, "Austen");
+
+        final AuthorPage first = underTest.page(null, 2);
+        assertEquals(List.of(new AuthorCount("Austen", 2), new AuthorCount("Bronte", 1)), first.getAuthors());
+        assertEquals("Bronte", first.getNextCursor());
+
+        final AuthorPage second = underTest.page(first.getNextCursor(), 2);
+        assertEquals(List.of(new AuthorCount("Dickens", 1)), second.getAuthors());
+        assertNull(second.getNextCursor());
+    }
+
+}
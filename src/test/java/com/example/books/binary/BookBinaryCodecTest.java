@@ -0,0 +1,85 @@
+package com.example.books.binary;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.books.TestData;
+import com.example.books.domain.Book;
+import com.example.books.domain.Isbn;
+
+/**
+ * Unit test for the BookBinaryCodec class.
+ * Checks that books survive a round trip, the layout of an encoded book, and that malformed documents are refused.
+ */
+public class BookBinaryCodecTest {
+
+    private static byte[] encode(final List<Book> books) throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        BookBinaryCodec.writeBooks(books, output);
+        return output.toByteArray();
+    }
+
+    // Test to ensure that books with long, non-ASCII and missing fields come back as they were written.
+    @Test
+    public void testThatListsRoundTrip() throws IOException {
+        final List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            books.add(Book.builder()
+                .isbn(Isbn.format(Isbn.withCheckDigit(978_000_000_000L + i)))
+                .author(i % 3 == 0 ? null : "Charlotte Brontë " + i)
+                .title("x".repeat(i))
+                .build());
+        }
+        books.add(new Book());
+
+        assertEquals(books, BookBinaryCodec.readBooks(new ByteArrayInputStream(encode(books))));
+    }
+
+    // Test to ensure that a single book is laid out as version, kind, packed ISBN and length-prefixed strings.
+    @Test
+    public void testThatBookLayoutIsCompact() throws IOException {
+        final Book book = Book.builder().isbn("0-09-957295-8").author("Ab").title(null).build();
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        BookBinaryCodec.writeBook(book, output);
+
+        final byte[] isbn = ByteBuffer.allocate(8).putLong(9780099572954L).array();
+        final byte[] expected = new byte[2 + 8 + 3 + 1];
+        expected[0] = 1;
+        expected[1] = 0;
+        System.arraycopy(isbn, 0, expected, 2, 8);
+        expected[10] = 3;
+        expected[11] = 'A';
+        expected[12] = 'b';
+        expected[13] = 0;
+        assertArrayEquals(expected, output.toByteArray());
+
+        final Book decoded = BookBinaryCodec.readBook(new ByteArrayInputStream(output.toByteArray()));
+        assertEquals("9780099572954", decoded.getIsbn());
+        assertEquals("Ab", decoded.getAuthor());
+    }
+
+    // Test to ensure that truncated documents, unknown versions and the wrong kind are refused.
+    @Test
+    public void testThatMalformedDocumentsAreRejected() throws IOException {
+        final byte[] encoded = encode(List.of(TestData.testBook()));
+
+        assertThrows(IOException.class, () -> BookBinaryCodec.readBooks(new ByteArrayInputStream(Arrays.copyOf(encoded, encoded.length - 1))));
+        assertThrows(IOException.class, () -> BookBinaryCodec.readBook(new ByteArrayInputStream(encoded)));
+
+        final byte[] futureVersion = encoded.clone();
+        futureVersion[0] = 2;
+        assertThrows(IOException.class, () -> BookBinaryCodec.readBooks(new ByteArrayInputStream(futureVersion)));
+    }
+
+}
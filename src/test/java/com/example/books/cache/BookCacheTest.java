@@ -0,0 +1,125 @@
+package com.example.books.cache;
+
+import static com.example.books.TestData.testBook;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.books.domain.Book;
+import com.example.books.domain.Isbn;
+import com.example.books.events.BookDeletedEvent;
+import com.example.books.events.BookSavedEvent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit test for the BookCache class.
+ * Checks that books are loaded once, that misses are not cached, that writes invalidate the entry
+ * and that concurrent misses share a single load.
+ */
+public class BookCacheTest {
+
+    private final Book book = testBook();
+
+    // Counts how often the cache falls through to the loader
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private BookCache underTest;
+
+    @BeforeEach
+    public void setUp(){
+        meterRegistry = new SimpleMeterRegistry();
+        underTest = new BookCache(100, Duration.ofMinutes(1), meterRegistry);
+    }
+
+    private final long isbn = Isbn.parse(book.getIsbn());
+
+    // Loader standing in for the repository
+    private Optional<Book> load(final long isbn){
+        loads.incrementAndGet();
+        return this.isbn == isbn ? Optional.of(book) : Optional.empty();
+    }
+
+    // Test to ensure that a cached book is not loaded again.
+    @Test
+    public void testThatBookIsLoadedOnce(){
+        underTest.get(isbn, this::load);
+        assertEquals(Optional.of(book), underTest.get(isbn, this::load));
+        assertEquals(1, loads.get());
+    }
+
+    // Test to ensure that unknown ISBNs are not cached.
+    @Test
+    public void testThatMissesAreNotCached(){
+        underTest.get(9781234567897L, this::load);
+        assertEquals(Optional.empty(), underTest.get(9781234567897L, this::load));
+        assertEquals(2, loads.get());
+    }
+
+    // Test to ensure that saving or deleting a book drops it from the cache.
+    @Test
+    public void testThatWritesInvalidateTheBook(){
+        underTest.get(isbn, this::load);
+        underTest.onBookSaved(new BookSavedEvent(book));
+        underTest.get(isbn, this::load);
+        underTest.onBookDeleted(new BookDeletedEvent(isbn));
+        underTest.get(isbn, this::load);
+        assertEquals(3, loads.get());
+    }
+
+    // Test to ensure that a miss arriving while the same ISBN is being loaded waits for that load.
+    @Test
+    public void testThatConcurrentMissesShareOneLoad() throws Exception {
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        // The first caller blocks inside the loader until released
+        final CompletableFuture<Optional<Book>> first = CompletableFuture.supplyAsync(() -> underTest.get(isbn, isbn -> {
+            loading.countDown();
+            await(release);
+            return load(isbn);
+        }));
+        loading.await(5, TimeUnit.SECONDS);
+
+        // The second caller joins the load in progress
+        final CompletableFuture<Optional<Book>> second = CompletableFuture.supplyAsync(() -> underTest.get(isbn, this::load));
+        while (meterRegistry.counter("books.cache.coalesced").count() < 1) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+
+        assertEquals(Optional.of(book), first.get(5, TimeUnit.SECONDS));
+        assertEquals(Optional.of(book), second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+    }
+
+    // Test to ensure that a book loaded while it was being written is not cached.
+    @Test
+    public void testThatLoadOverlappingAWriteIsNotCached(){
+        underTest.get(isbn, isbn -> {
+            underTest.onBookSaved(new BookSavedEvent(book));
+            return load(isbn);
+        });
+        underTest.get(isbn, this::load);
+        assertEquals(2, loads.get());
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
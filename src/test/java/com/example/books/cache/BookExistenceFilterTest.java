@@ -0,0 +1,75 @@
+package com.example.books.cache;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.example.books.TestData;
+import com.example.books.domain.Book;
+import com.example.books.domain.Isbn;
+import com.example.books.events.BookSavedEvent;
+import com.example.books.repositories.BookRepository;
+import com.example.books.shards.BookShards;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit test for the BookExistenceFilter class.
+ * Checks that the filter is built from the stored ISBNs and follows later saves.
+ */
+@ExtendWith(MockitoExtension.class)
+public class BookExistenceFilterTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private BookExistenceFilter underTest;
+
+    @BeforeEach
+    public void setUp(){
+        underTest = new BookExistenceFilter(bookRepository, new BookShards(1, 1), transactionManager, 1000, 0.001, new SimpleMeterRegistry());
+    }
+
+    // Test to ensure that every ISBN is possibly stored until the filter has been built.
+    @Test
+    public void testThatEveryIsbnMightExistBeforeBuild(){
+        assertTrue(underTest.mightExist(9781234567897L));
+    }
+
+    // Test to ensure that the built filter knows the stored ISBNs and rejects unknown ones.
+    @Test
+    public void testThatBuiltFilterRejectsUnknownIsbns(){
+        final Book book = TestData.testBook();
+        when(bookRepository.streamAllIsbns()).thenReturn(Stream.of(Isbn.parse(book.getIsbn())));
+
+        underTest.build();
+
+        assertTrue(underTest.mightExist(Isbn.parse(book.getIsbn())));
+        assertFalse(underTest.mightExist(9781234567897L));
+    }
+
+    // Test to ensure that ISBNs saved after the build are added to the filter.
+    @Test
+    public void testThatSavedIsbnsAreAdded(){
+        when(bookRepository.streamAllIsbns()).thenReturn(Stream.empty());
+        underTest.build();
+
+        final Book book = TestData.testBook();
+        underTest.onBookSaved(new BookSavedEvent(book));
+
+        assertTrue(underTest.mightExist(Isbn.parse(book.getIsbn())));
+    }
+
+}
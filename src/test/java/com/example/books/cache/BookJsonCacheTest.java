@@ -0,0 +1,143 @@
+package com.example.books.cache;
+
+import static com.example.books.TestData.testBook;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.LongFunction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.transaction.event.TransactionalEventListenerFactory;
+
+import com.example.books.domain.Book;
+import com.example.books.domain.Isbn;
+import com.example.books.events.BookDeletedEvent;
+import com.example.books.events.BookSavedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit test for the BookJsonCache class.
+ * Checks that books are encoded once with the ObjectMapper, that misses are not cached and that writes
+ * invalidate the encoding, also when a miss runs between the invalidations of the two caches.
+ */
+public class BookJsonCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Book book = testBook();
+
+    private final long isbn = Isbn.parse(book.getIsbn());
+
+    // Counts how often the cache falls through to the loader
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private BookJsonCache underTest;
+
+    @BeforeEach
+    public void setUp(){
+        book.setRevision(42L);
+        underTest = new BookJsonCache(objectMapper, 1 << 20, Duration.ofMinutes(1), new SimpleMeterRegistry());
+    }
+
+    // Loader standing in for the book service
+    private Optional<Book> load(final long isbn){
+        loads.incrementAndGet();
+        return this.isbn == isbn ? Optional.of(book) : Optional.empty();
+    }
+
+    // Test to ensure that a cached book is served as the same bytes Jackson writes, without loading it again.
+    @Test
+    public void testThatBookIsEncodedOnce() throws Exception {
+        final EncodedBook first = underTest.get(isbn, this::load).orElseThrow();
+        final EncodedBook second = underTest.get(isbn, this::load).orElseThrow();
+
+        assertArrayEquals(objectMapper.writeValueAsBytes(book), first.json());
+        assertEquals(42L, first.revision());
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+    }
+
+    // Test to ensure that unknown ISBNs are not cached.
+    @Test
+    public void testThatMissesAreNotCached(){
+        assertEquals(Optional.empty(), underTest.get(9781234567897L, this::load));
+        assertEquals(Optional.empty(), underTest.get(9781234567897L, this::load));
+        assertEquals(2, loads.get());
+    }
+
+    // Test to ensure that saving or deleting a book drops its encoding.
+    @Test
+    public void testThatWritesInvalidateTheEncoding(){
+        underTest.get(isbn, this::load);
+        underTest.onBookSaved(new BookSavedEvent(book));
+        underTest.get(isbn, this::load);
+        underTest.onBookDeleted(new BookDeletedEvent(isbn));
+        underTest.get(isbn, this::load);
+        assertEquals(3, loads.get());
+    }
+
+    // Test to ensure that a book encoded while it was being written is not cached.
+    @Test
+    public void testThatEncodingOverlappingAWriteIsNotCached(){
+        underTest.get(isbn, isbn -> {
+            underTest.onBookSaved(new BookSavedEvent(book));
+            return load(isbn);
+        });
+        underTest.get(isbn, this::load);
+        assertEquals(2, loads.get());
+    }
+
+    // Test to ensure that a miss between the invalidations of a write reads the new version through BookCache.
+    // The old version is cached in BookCache only; the write is published to both caches through Spring, which
+    // runs a reader between their listeners. Were the JSON cache invalidated first, the reader would encode the
+    // old version BookCache still holds, after the JSON cache's generation was bumped, and that would stay cached.
+    @Test
+    public void testThatMissBetweenInvalidationsReadsTheWrittenBook(){
+        final Book written = Book.builder().isbn(book.getIsbn()).author(book.getAuthor()).title("Revised").revision(43L).build();
+        final AtomicReference<Book> stored = new AtomicReference<>(book);
+        final BookCache bookCache = new BookCache(100, Duration.ofMinutes(1), new SimpleMeterRegistry());
+        final LongFunction<Optional<Book>> throughBookCache = isbn -> bookCache.get(isbn, key -> Optional.of(stored.get()));
+        throughBookCache.apply(isbn);
+
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            context.registerBean(TransactionalEventListenerFactory.class);
+            context.registerBean(BookCache.class, () -> bookCache);
+            context.registerBean(BookJsonCache.class, () -> underTest);
+            context.registerBean(ReaderBetweenInvalidations.class, () -> new ReaderBetweenInvalidations(() -> underTest.get(isbn, throughBookCache)));
+            context.refresh();
+
+            stored.set(written);
+            context.publishEvent(new BookSavedEvent(written));
+        }
+
+        assertEquals(43L, underTest.get(isbn, throughBookCache).orElseThrow().revision());
+    }
+
+    // Reads a book while a write is being invalidated, after BookCache and before the JSON cache
+    public static class ReaderBetweenInvalidations {
+
+        private final Runnable read;
+
+        public ReaderBetweenInvalidations(final Runnable read) {
+            this.read = read;
+        }
+
+        @Order((BookCache.INVALIDATION_ORDER + BookJsonCache.INVALIDATION_ORDER) / 2)
+        @EventListener
+        public void onBookSaved(final BookSavedEvent event) {
+            read.run();
+        }
+    }
+
+}
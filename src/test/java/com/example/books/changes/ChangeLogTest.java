@@ -0,0 +1,73 @@
+package com.example.books.changes;
+
+import static com.example.books.TestData.testBook;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.books.domain.BookChange;
+
+/**
+ * Unit test for the ChangeLog class.
+ * Checks that changes are numbered in order, read from a cursor, and that dropped changes are reported.
+ */
+public class ChangeLogTest {
+
+    // Test to ensure that changes get consecutive sequence numbers after the start sequence.
+    @Test
+    public void testThatChangesAreNumberedInOrder(){
+        final ChangeLog underTest = new ChangeLog(100, 10);
+
+        underTest.append(BookChange.Type.SAVED, "0099572958", testBook());
+        underTest.append(BookChange.Type.DELETED, "0099572958", null);
+
+        final List<BookChange> changes = underTest.since(100, 10).orElseThrow();
+        assertEquals(List.of(101L, 102L), sequences(changes));
+        assertEquals(BookChange.Type.DELETED, changes.get(1).getType());
+        assertEquals(102, underTest.lastSequence());
+    }
+
+    // Test to ensure that reading from a cursor returns only the later changes, up to the limit.
+    @Test
+    public void testThatChangesAreReadFromCursor(){
+        final ChangeLog underTest = new ChangeLog(0, 10);
+        for (int i = 0; i < 5; i++) {
+            underTest.append(BookChange.Type.SAVED, "0099572958", testBook());
+        }
+
+        assertEquals(List.of(3L, 4L), sequences(underTest.since(2, 2).orElseThrow()));
+        assertEquals(List.of(), underTest.since(5, 10).orElseThrow());
+    }
+
+    // Test to ensure that a cursor whose next changes were dropped from the full log is refused.
+    @Test
+    public void testThatDroppedChangesAreReported(){
+        final ChangeLog underTest = new ChangeLog(0, 3);
+        for (int i = 0; i < 5; i++) {
+            underTest.append(BookChange.Type.SAVED, "0099572958", testBook());
+        }
+
+        // Changes 3 to 5 are held, so a reader must have seen at least change 2
+        assertEquals(Optional.empty(), underTest.since(1, 10));
+        assertEquals(List.of(3L, 4L, 5L), sequences(underTest.since(2, 10).orElseThrow()));
+        assertEquals(3, underTest.size());
+    }
+
+    // Test to ensure that a cursor from before the log started is refused.
+    @Test
+    public void testThatCursorBeforeStartIsReported(){
+        final ChangeLog underTest = new ChangeLog(100, 10);
+        assertTrue(underTest.since(99, 10).isEmpty());
+        assertEquals(List.of(), underTest.since(100, 10).orElseThrow());
+    }
+
+    private static List<Long> sequences(final List<BookChange> changes){
+        return changes.stream().map(BookChange::getSequence).collect(Collectors.toList());
+    }
+
+}
@@ -0,0 +1,70 @@
+package com.example.books.collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test for the LongIntHashMap class.
+ * Checks lookups, the key 0, and that entries stay reachable after growth and removals.
+ */
+public class LongIntHashMapTest {
+
+    private final LongIntHashMap underTest = new LongIntHashMap();
+
+    // Test to ensure that values are replaced and removed by key, including the key 0.
+    @Test
+    public void testThatValuesArePutAndRemoved(){
+        underTest.put(9780099572954L, 1);
+        underTest.put(9780099572954L, 2);
+        underTest.put(0, 3);
+
+        assertEquals(2, underTest.getOrDefault(9780099572954L, -1));
+        assertEquals(3, underTest.getOrDefault(0, -1));
+        assertEquals(-1, underTest.getOrDefault(9781234567897L, -1));
+        assertEquals(2, underTest.size());
+
+        assertEquals(2, underTest.removeOrDefault(9780099572954L, -1));
+        assertEquals(3, underTest.removeOrDefault(0, -1));
+        assertEquals(-1, underTest.removeOrDefault(0, -1));
+        assertEquals(0, underTest.size());
+    }
+
+    // Test to ensure that the map agrees with a HashMap through growth and many removals.
+    @Test
+    public void testThatRandomOperationsMatchHashMap(){
+        final Map<Long, Integer> expected = new HashMap<>();
+        final Random random = new Random(42);
+
+        for (int i = 0; i < 100_000; i++) {
+            // A small key space makes collisions, replacements and removals of present keys frequent
+            final long key = random.nextInt(5000) * 0x9E3779B97F4A7C15L;
+            if (random.nextBoolean()) {
+                underTest.put(key, i);
+                expected.put(key, i);
+            } else {
+                assertEquals(expected.getOrDefault(key, -1).intValue(), underTest.removeOrDefault(key, -1));
+                expected.remove(key);
+            }
+        }
+
+        assertEquals(expected.size(), underTest.size());
+        expected.forEach((key, value) -> assertEquals(value.intValue(), underTest.getOrDefault(key, -1)));
+    }
+
+    // Test to ensure that every value is replaced by the operator.
+    @Test
+    public void testThatReplaceAllAppliesToEveryValue(){
+        underTest.put(1, 10);
+        underTest.put(0, 20);
+        underTest.replaceAll(value -> value / 10);
+
+        assertEquals(1, underTest.getOrDefault(1, -1));
+        assertEquals(2, underTest.getOrDefault(0, -1));
+    }
+
+}
@@ -1,32 +1,51 @@
 package com.example.books.controllers;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.annotation.DirtiesContext.ClassMode;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
 import com.example.books.TestData;
+import com.example.books.binary.BookBinaryCodec;
 import com.example.books.domain.Book;
+import com.example.books.domain.Isbn;
 import com.example.books.services.BookService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
 
 /**
  * Integration test class for the BookController.
  * Tests the creation of a book using MockMvc to simulate HTTP requests.
  */
-@SpringBootTest
+@SpringBootTest(properties = "books.import.directory=" + BookControllerIT.IMPORT_DIRECTORY)
 @AutoConfigureMockMvc
+@AutoConfigureObservability
 @ExtendWith(SpringExtension.class)
 @DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
 public class BookControllerIT {
+
+    // Directory the import tests place their files in
+    static final String IMPORT_DIRECTORY = "target/test-imports";
     
     @Autowired
     private MockMvc mockMvc;
@@ -69,10 +88,47 @@ public class BookControllerIT {
      */
     @Test
     public void testThatRetriveBookReturns404WhenBookNotFound() throws Exception {
-        mockMvc.perform(MockMvcRequestBuilders.get("/books/123123123"))
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/9781234567897"))
         .andExpect(MockMvcResultMatchers.status().isNotFound());
     }
 
+    /**
+     * Tests that a malformed ISBN or one with a wrong check digit is rejected with status 400
+     *
+     * @throws Exception If an error occurs during the test execution.
+     */
+    @Test
+    public void testThatInvalidIsbnReturnsHttp400() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/123123123"))
+        .andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/books/9780099572955")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(new ObjectMapper().writeValueAsString(TestData.testBook())))
+        .andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/books?after=abc"))
+        .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    /**
+     * Tests that a book saved under its ISBN-10 is stored and found under its ISBN-13
+     *
+     * @throws Exception If an error occurs during the test execution.
+     */
+    @Test
+    public void testThatIsbn10IsNormalizedToIsbn13() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.put("/books/0-09-957295-8")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(new ObjectMapper().writeValueAsString(TestData.testBook())))
+        .andExpect(MockMvcResultMatchers.status().isCreated())
+        .andExpect(MockMvcResultMatchers.jsonPath("$.isbn").value("9780099572954"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/978-0-09-957295-4"))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.jsonPath("$.isbn").value("9780099572954"));
+    }
+
     /**
      * Tests that a book is successfully retrived and status 200
      *
@@ -93,6 +149,32 @@ public class BookControllerIT {
 
     }
 
+    /**
+     * Tests that a book is sent with an ETag and that presenting it again returns 304 without a body.
+     *
+     * @throws Exception If an error occurs during the test execution.
+     */
+    @Test
+    public void testThatRetriveBookReturnsHttp304WhenETagMatches() throws Exception {
+
+        final Book book = TestData.testBook();
+        bookService.save(book);
+
+        final String etag = mockMvc.perform(MockMvcRequestBuilders.get("/books/" + book.getIsbn()))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.header().exists(HttpHeaders.ETAG))
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/" + book.getIsbn()).header(HttpHeaders.IF_NONE_MATCH, etag))
+        .andExpect(MockMvcResultMatchers.status().isNotModified())
+        .andExpect(MockMvcResultMatchers.content().string(""));
+
+        // Updating the book gives it a new ETag
+        bookService.save(book);
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/" + book.getIsbn()).header(HttpHeaders.IF_NONE_MATCH, etag))
+        .andExpect(MockMvcResultMatchers.status().isOk());
+    }
+
     /////////////////////////
 
     /**
@@ -130,6 +212,386 @@ public class BookControllerIT {
 
     }
 
+    /**
+     * Tests that the listBooks endpoint pages through the books by ISBN using the next cursor.
+     *
+     * @throws Exception If an error occurs during the test execution.
+     */
+    @Test
+    public void testThatListBooksPagesWithCursor() throws Exception {
+
+        // Save three books with increasing ISBNs
+        for (final String isbn : List.of("9780000000019", "9780000000026", "9780000000033")) {
+            final Book book = TestData.testBook();
+            book.setIsbn(isbn);
+            bookService.save(book);
+        }
+
+        // The first page holds two books and points at the second one
+        mockMvc.perform(MockMvcRequestBuilders.get("/books?limit=2"))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(2))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.[1].isbn").value("9780000000026"))
+        .andExpect(MockMvcResultMatchers.header().string(BookController.NEXT_CURSOR_HEADER, "9780000000026"));
+
+        // The second page holds the remaining book and no cursor
+        mockMvc.perform(MockMvcRequestBuilders.get("/books?after=9780000000026&limit=2"))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(1))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.[0].isbn").value("9780000000033"))
+        .andExpect(MockMvcResultMatchers.header().doesNotExist(BookController.NEXT_CURSOR_HEADER));
+    }
+
+    /**
+     * Tests that the books of an author are paged by ISBN, leaving out the books of other authors.
+     *
+     * @throws Exception If an error occurs during the test execution.
+     */
+    @Test
+    public void testThatBooksOfAuthorArePagedWithCursor() throws Exception {
+
+        // Save three books of one author and one of another
+        for (final String isbn : List.of("9780000000019", "9780000000026", "9780000000033", "9780141439556")) {
+            final Book book = TestData.testBook();
+            book.setIsbn(isbn);
+            book.setAuthor(isbn.equals("9780141439556") ? "Jane Austen" : "Frances Hodgson Burnett");
+            bookService.save(book);
+        }
+
+        // The first page holds two books and points at the second one
+        mockMvc.perform(MockMvcRequestBuilders.get("/authors/{author}/books?limit=2", "Frances Hodgson Burnett"))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(2))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.[0].isbn").value("9780000000019"))
+        .andExpect(MockMvcResultMatchers.header().string(BookController.NEXT_CURSOR_HEADER, "9780000000026"));
+
+        // The second page holds the remaining book and no cursor
+        mockMvc.perform(MockMvcRequestBuilders.get("/authors/{author}/books?after=9780000000026&limit=2", "Frances Hodgson Burnett"))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(1))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.[0].isbn").value("9780000000033"))
+        .andExpect(MockMvcResultMatchers.header().doesNotExist(BookController.NEXT_CURSOR_HEADER));
+
+        // A cursor that is not an ISBN is rejected
+        mockMvc.perform(MockMvcRequestBuilders.get("/authors/{author}/books?after=abc", "Jane Austen"))
+        .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    /**
+     * Tests that the author counts follow writes, rewrites under another author and deletes.
+     *
+     * @throws Exception If an error occurs during the test execution.
+     */
+    @Test
+    public void testThatAuthorsAreListedWithTheirBookCounts() throws Exception {
+
+        // Two books of one author and one of another
+        for (final String isbn : List.of("9780000000019", "9780000000026", "9780141439556")) {
+            final Book book = TestData.testBook();
+            book.setIsbn(isbn);
+            book.setAuthor(isbn.equals("9780141439556") ? "Jane Austen" : "Frances Hodgson Burnett");
+            bookService.save(book);
+        }
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/authors?limit=1"))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(1))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.[0].author").value("Frances Hodgson Burnett"))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.[0].books").value(2))
+        .andExpect(MockMvcResultMatchers.header().string(BookController.NEXT_CURSOR_HEADER, "Frances Hodgson Burnett"));
+
+        // Move one book to the other author and delete the remaining one
+        final Book moved = TestData.testBook();
+        moved.setIsbn("9780000000019");
+        moved.setAuthor("Jane Austen");
+        bookService.save(moved);
+        bookService.deleteBookById(9780000000026L);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/authors"))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(1))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.[0].author").value("Jane Austen"))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.[0].books").value(2))
+        .andExpect(MockMvcResultMatchers.header().doesNotExist(BookController.NEXT_CURSOR_HEADER));
+    }
+
+    /**
+     * Tests that the multi-get returns every requested ISBN in request order, marking the unknown ones as missing.
+     *
+     * @throws Exception If an error occurs during the test execution.
+     */
+    @Test
+    public void testThatRetrieveBooksReturnsBooksInRequestOrder() throws Exception {
+
+        // Save two books
+        for (final String isbn : List.of("9780000000019", "9780000000026")) {
+            final Book book = TestData.testBook();
+            book.setIsbn(isbn);
+            bookService.save(book);
+        }
+
+        // Ask for them in reverse order with an unknown ISBN in between
+        mockMvc.perform(MockMvcRequestBuilders.get("/books?isbn=9780000000026,9781234567897,9780000000019"))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(3))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.[0].isbn").value("9780000000026"))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.[0].status").value("FOUND"))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.[0].book.title").value(TestData.testBook().getTitle()))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.[1].isbn").value("9781234567897"))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.[1].status").value("MISSING"))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.[2].isbn").value("9780000000019"))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.[2].status").value("FOUND"));
+
+        // The same lookup with the ISBNs in the body
+        mockMvc.perform(MockMvcRequestBuilders.post("/books/lookup")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("[\"9781234567897\",\"978-0-00-000001-9\"]"))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.jsonPath("$.[0].status").value("MISSING"))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.[1].status").value("FOUND"));
+    }
+
+    /**
+     * Tests that the change feed returns the saves and deletions after a cursor, deletions as tombstones.
+     *
+     * @throws Exception If an error occurs during the test execution.
+     */
+    @Test
+    public void testThatChangesAreListedAfterCursor() throws Exception {
+
+        // Take the cursor before writing
+        final String cursor = mockMvc.perform(MockMvcRequestBuilders.get("/books/changes"))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andReturn().getResponse().getHeader(BookController.NEXT_CURSOR_HEADER);
+
+        final Book book = TestData.testBook();
+        bookService.save(book);
+        bookService.deleteBookById(Isbn.parse(book.getIsbn()));
+
+        final String nextCursor = mockMvc.perform(MockMvcRequestBuilders.get("/books/changes?since=" + cursor))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(2))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.[0].type").value("SAVED"))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.[0].book.title").value(book.getTitle()))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.[1].type").value("DELETED"))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.[1].isbn").value(book.getIsbn()))
+        .andReturn().getResponse().getHeader(BookController.NEXT_CURSOR_HEADER);
+
+        // Nothing changed after the new cursor, and a cursor from before the log started is gone
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/changes?since=" + nextCursor))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(0));
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/changes?since=0"))
+        .andExpect(MockMvcResultMatchers.status().isGone());
+    }
+
+    /**
+     * Tests that the change stream replays the changes after the cursor as server-sent events.
+     *
+     * @throws Exception If an error occurs during the test execution.
+     */
+    @Test
+    public void testThatChangeStreamReplaysChangesAfterCursor() throws Exception {
+
+        final String cursor = mockMvc.perform(MockMvcRequestBuilders.get("/books/changes"))
+        .andReturn().getResponse().getHeader(BookController.NEXT_CURSOR_HEADER);
+
+        final Book book = TestData.testBook();
+        bookService.save(book);
+
+        final MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/books/changes/stream?since=" + cursor))
+        .andExpect(MockMvcResultMatchers.request().asyncStarted())
+        .andReturn();
+
+        // The events are sent from another thread; wait for the replayed save
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (!result.getResponse().getContentAsString().contains("event:saved")
+            && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertTrue(result.getResponse().getContentAsString().contains("event:saved"));
+        Assertions.assertTrue(result.getResponse().getContentAsString().contains(book.getIsbn()));
+    }
+
+    /**
+     * Tests that a CSV file is imported in the background, its bad lines going to the reject file.
+     *
+     * @throws Exception If an error occurs during the test execution.
+     */
+    @Test
+    public void testThatCsvFileIsImported() throws Exception {
+
+        final Path directory = Files.createDirectories(Paths.get(IMPORT_DIRECTORY));
+        Files.writeString(directory.resolve("books.csv"), "isbn,author,title\n"
+            + "0099572958,Frances Hodgson Burnett,The Secret Garden\n"
+            + "0141439556,Emily Bronte\n"
+            + "0141439556,Emily Bronte,Wuthering Heights\n");
+
+        final String location = mockMvc.perform(MockMvcRequestBuilders.post("/books/imports?file=books.csv"))
+        .andExpect(MockMvcResultMatchers.status().isAccepted())
+        .andReturn().getResponse().getHeader(HttpHeaders.LOCATION);
+
+        // Wait for the import to finish
+        final long deadline = System.currentTimeMillis() + 10000;
+        String status = "RUNNING";
+        while (status.equals("RUNNING") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            status = JsonPath.read(mockMvc.perform(MockMvcRequestBuilders.get(location))
+                .andReturn().getResponse().getContentAsString(), "$.status");
+        }
+
+        mockMvc.perform(MockMvcRequestBuilders.get(location))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.status").value("COMPLETED"))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.imported").value(2))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.rejected").value(1))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.rejectFile").value("books.csv.rejects"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/0141439556"))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.jsonPath("$.title").value("Wuthering Heights"));
+
+        // The reject file gives the line number in the file and the reason
+        Assertions.assertEquals(List.of("3\tExpected 3 fields, found 2\t0141439556,Emily Bronte"),
+            Files.readAllLines(directory.resolve("books.csv.rejects")));
+
+        // Names outside the import directory or without a file name are rejected, missing files are not found
+        mockMvc.perform(MockMvcRequestBuilders.post("/books/imports?file=../../pom.xml"))
+        .andExpect(MockMvcResultMatchers.status().isBadRequest());
+        mockMvc.perform(MockMvcRequestBuilders.post("/books/imports?file=/"))
+        .andExpect(MockMvcResultMatchers.status().isBadRequest());
+        mockMvc.perform(MockMvcRequestBuilders.post("/books/imports?file=missing.csv"))
+        .andExpect(MockMvcResultMatchers.status().isNotFound());
+    }
+
+    /**
+     * Tests that the listBooks endpoint rejects a page size that is not positive.
+     *
+     * @throws Exception If an error occurs during the test execution.
+     */
+    @Test
+    public void testThatListBooksReturnsHttp400WhenLimitIsNotPositive() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/books?limit=0"))
+        .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    /**
+     * Tests that the export endpoint streams every book as one line of JSON.
+     *
+     * @throws Exception If an error occurs during the test execution.
+     */
+    @Test
+    public void testThatExportStreamsBooksAsNdjson() throws Exception {
+
+        final Book book = TestData.testBook();
+        bookService.save(book);
+
+        // The body is written asynchronously, so dispatch the async result before checking it
+        final MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/books/export"))
+        .andExpect(MockMvcResultMatchers.request().asyncStarted())
+        .andReturn();
+
+        final String expected = new ObjectMapper().writeValueAsString(book) + "\n";
+
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.content().contentType(BookController.APPLICATION_NDJSON_VALUE))
+        .andExpect(MockMvcResultMatchers.content().string(expected));
+    }
+
+    /**
+     * Tests that the list endpoint returns 304 while the catalog is unchanged and 200 once a book is written.
+     *
+     * @throws Exception If an error occurs during the test execution.
+     */
+    @Test
+    public void testThatListBooksReturnsHttp304UntilCatalogChanges() throws Exception {
+
+        final String etag = mockMvc.perform(MockMvcRequestBuilders.get("/books"))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.header().exists(HttpHeaders.ETAG))
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/books").header(HttpHeaders.IF_NONE_MATCH, etag))
+        .andExpect(MockMvcResultMatchers.status().isNotModified())
+        .andExpect(MockMvcResultMatchers.content().string(""));
+
+        bookService.save(TestData.testBook());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/books").header(HttpHeaders.IF_NONE_MATCH, etag))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(1));
+    }
+
+    /**
+     * Tests that the search endpoint finds saved books by a word of their title.
+     *
+     * @throws Exception If an error occurs during the test execution.
+     */
+    @Test
+    public void testThatSearchFindsBooksByTitle() throws Exception {
+
+        final Book book = TestData.testBook();
+        bookService.save(book);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/search?q=garden"))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(1))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.[0].isbn").value(book.getIsbn()));
+
+        // Deleted books are no longer found
+        bookService.deleteBookById(Isbn.parse(book.getIsbn()));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/search?q=garden"))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.content().string("[]"));
+    }
+
+    /**
+     * Tests that the suggest endpoint completes the beginning of titles and authors.
+     *
+     * @throws Exception If an error occurs during the test execution.
+     */
+    @Test
+    public void testThatSuggestCompletesTitlesAndAuthors() throws Exception {
+
+        final Book book = TestData.testBook();
+        bookService.save(book);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/suggest?prefix=the sec"))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(1))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.[0].text").value(book.getTitle()))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.[0].kind").value("TITLE"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/suggest?prefix=fran"))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.jsonPath("$.[0].text").value(book.getAuthor()))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.[0].kind").value("AUTHOR"))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.[0].books").value(1));
+    }
+
+    /**
+     * Tests that handler, service, repository and SQL statement metrics are exposed in Prometheus format.
+     *
+     * @throws Exception If an error occurs during the test execution.
+     */
+    @Test
+    public void testThatMetricsAreExposedInPrometheusFormat() throws Exception {
+
+        final Book book = TestData.testBook();
+        bookService.save(book);
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/" + book.getIsbn()))
+        .andExpect(MockMvcResultMatchers.status().isOk());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/actuator/prometheus"))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.content().string(Matchers.containsString("http_server_requests_seconds_count")))
+        .andExpect(MockMvcResultMatchers.content().string(Matchers.containsString("books_service_seconds_count")))
+        .andExpect(MockMvcResultMatchers.content().string(Matchers.containsString("books_service_active{class=\"BookServiceImpl\",method=\"findById\",}")))
+        .andExpect(MockMvcResultMatchers.content().string(Matchers.containsString("books_repository_seconds_count{class=\"BookRepository\"")))
+        .andExpect(MockMvcResultMatchers.content().string(Matchers.containsString("books_sql_statements_count{uri=\"/books/{isbn}\",}")));
+    }
+
     ////////////
 
     /**
@@ -169,6 +631,83 @@ public class BookControllerIT {
 
     }
 
+    /**
+     * Tests that the bulk PUT endpoint creates new books, updates existing ones
+     * and reports the status of every ISBN.
+     *
+     * @throws Exception If an error occurs during the test execution.
+     */
+    @Test
+    public void testThatBulkPutReportsCreatedAndUpdatedBooks() throws Exception {
+
+        // The test book already exists
+        final Book existing = TestData.testBook();
+        bookService.save(existing);
+
+        final Book created = TestData.testBook();
+        created.setIsbn("9780000000019");
+        existing.setTitle("Updated title");
+
+        final String booksJson = new ObjectMapper().writeValueAsString(List.of(existing, created));
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/books")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(booksJson))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.jsonPath("$.[0].isbn").value(existing.getIsbn()))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.[0].status").value("UPDATED"))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.[1].isbn").value(created.getIsbn()))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.[1].status").value("CREATED"));
+
+        // The update is visible to subsequent reads
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/" + existing.getIsbn()))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.jsonPath("$.title").value("Updated title"));
+    }
+
+    /**
+     * Tests that lists of books are read and written in the binary representation when it is negotiated,
+     * and that JSON stays the default.
+     *
+     * @throws Exception If an error occurs during the test execution.
+     */
+    @Test
+    public void testThatBinaryRepresentationIsNegotiated() throws Exception {
+
+        final Book first = TestData.testBook();
+        final Book second = TestData.testBook();
+        second.setIsbn("9780141439556");
+        second.setTitle("Wuthering Heights");
+
+        // Bulk write with a binary body
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        BookBinaryCodec.writeBooks(List.of(first, second), body);
+        mockMvc.perform(MockMvcRequestBuilders.put("/books")
+        .contentType(BookBinaryCodec.MEDIA_TYPE_VALUE)
+        .content(body.toByteArray()))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.jsonPath("$.[1].status").value("CREATED"));
+
+        // The list comes back in the binary representation when asked for it
+        final byte[] listed = mockMvc.perform(MockMvcRequestBuilders.get("/books")
+        .accept(BookBinaryCodec.MEDIA_TYPE_VALUE))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.content().contentType(BookBinaryCodec.MEDIA_TYPE_VALUE))
+        .andReturn().getResponse().getContentAsByteArray();
+        Assertions.assertEquals(List.of(first, second), BookBinaryCodec.readBooks(new ByteArrayInputStream(listed)));
+
+        // And as JSON otherwise
+        mockMvc.perform(MockMvcRequestBuilders.get("/books"))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+
+        // A malformed binary body is a bad request
+        mockMvc.perform(MockMvcRequestBuilders.put("/books")
+        .contentType(BookBinaryCodec.MEDIA_TYPE_VALUE)
+        .content(new byte[] {1, 1, 5}))
+        .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
     /**
      * Tests that an HTTP 204 status code is returned when attempting to delete a non-existing book.
      *
@@ -176,7 +715,7 @@ public class BookControllerIT {
      */
     @Test
     public void testThatHttp204IsReturnedWhenBookDoesntExist() throws Exception {
-        mockMvc.perform(MockMvcRequestBuilders.delete("/books/322"))
+        mockMvc.perform(MockMvcRequestBuilders.delete("/books/9781234567897"))
         .andExpect(MockMvcResultMatchers.status().isNoContent());
     }
 
@@ -0,0 +1,70 @@
+package com.example.books.controllers;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import com.example.books.TestData;
+import com.example.books.domain.Book;
+import com.example.books.services.BookService;
+import com.example.books.services.CatalogSnapshotService;
+
+/**
+ * Integration test for the snapshot serving mode of the BookController.
+ * Books are read from the exported snapshot, so writes made after the export are not visible.
+ */
+@SpringBootTest(properties = {
+    "books.snapshot.serve=true",
+    "books.snapshot.file=target/test-snapshots/catalog.snapshot"
+})
+@AutoConfigureMockMvc
+@ExtendWith(SpringExtension.class)
+public class CatalogSnapshotIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private CatalogSnapshotService catalogSnapshotService;
+
+    /**
+     * Tests that single books and pages are served from the snapshot taken by the last export.
+     *
+     * @throws Exception If an error occurs during the test execution.
+     */
+    @Test
+    public void testThatReadsAreServedFromTheSnapshot() throws Exception {
+
+        final Book book = TestData.testBook();
+        bookService.save(book);
+        catalogSnapshotService.export();
+
+        // Saved after the export, so only the database knows it
+        final Book later = TestData.testBook();
+        later.setIsbn("9780141439556");
+        bookService.save(later);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/" + book.getIsbn()))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.jsonPath("$.title").value(book.getTitle()))
+        .andExpect(MockMvcResultMatchers.header().exists("ETag"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/" + later.getIsbn()))
+        .andExpect(MockMvcResultMatchers.status().isNotFound());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/books?limit=10"))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(1))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.[0].isbn").value(book.getIsbn()));
+    }
+
+}
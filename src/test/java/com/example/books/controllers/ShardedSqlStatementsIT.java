@@ -0,0 +1,102 @@
+package com.example.books.controllers;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import com.example.books.domain.Book;
+import com.example.books.domain.Isbn;
+import com.example.books.shards.BookShards;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Integration test for the books.sql.statements metric over two shards with write-behind enabled.
+ * Statements run on the threads of the shards and on the group commit thread count for the request they serve.
+ */
+@SpringBootTest(properties = {
+    "books.shards.count=2",
+    "books.shards.url=jdbc:h2:mem:books-statements-{shard}-${random.uuid}",
+    "books.write-behind.enabled=true"
+})
+@AutoConfigureMockMvc
+@ExtendWith(SpringExtension.class)
+public class ShardedSqlStatementsIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookShards shards;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Valid ISBN-13s that sort in the order they were generated
+    private static String isbn(final int i) {
+        return Isbn.format(Isbn.withCheckDigit(978_100_000_000L + i));
+    }
+
+    private static Book book(final int i) {
+        return Book.builder().isbn(isbn(i)).author("Author " + i).title("Title " + i).build();
+    }
+
+    // Total statements recorded for a URI pattern so far
+    private double statements(final String uri) {
+        final DistributionSummary summary = meterRegistry.find("books.sql.statements").tag("uri", uri).summary();
+        return summary == null ? 0 : summary.totalAmount();
+    }
+
+    /**
+     * Tests that a bulk write, a listing and a write-behind write each count the statements of both shards.
+     *
+     * @throws Exception If an error occurs during the test execution.
+     */
+    @Test
+    public void testThatStatementsOfEveryShardAreCounted() throws Exception {
+
+        // Four new books spread over both shards
+        final List<Book> books = IntStream.range(1, 5).mapToObj(ShardedSqlStatementsIT::book).collect(Collectors.toList());
+        Assertions.assertEquals(Set.of(0, 1),
+            books.stream().map(book -> shards.shardOf(Isbn.parse(book.getIsbn()))).collect(Collectors.toSet()));
+
+        // Each shard looks up its books and inserts them: two statements per shard
+        double before = statements("/books");
+        mockMvc.perform(MockMvcRequestBuilders.put("/books")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(new ObjectMapper().writeValueAsString(books)))
+        .andExpect(MockMvcResultMatchers.status().isOk());
+        Assertions.assertEquals(4, statements("/books") - before);
+
+        // Each shard reads its part of the page: one statement per shard
+        before = statements("/books");
+        mockMvc.perform(MockMvcRequestBuilders.get("/books?limit=10"))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(4));
+        Assertions.assertEquals(2, statements("/books") - before);
+
+        // The group commit thread looks up and inserts the book on its shard, on behalf of the waiting request
+        before = statements("/books/{isbn}");
+        mockMvc.perform(MockMvcRequestBuilders.put("/books/" + isbn(5))
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(new ObjectMapper().writeValueAsString(book(5))))
+        .andExpect(MockMvcResultMatchers.status().isCreated());
+        Assertions.assertEquals(2, statements("/books/{isbn}") - before);
+    }
+
+}
@@ -0,0 +1,137 @@
+package com.example.books.controllers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import com.example.books.domain.Book;
+import com.example.books.domain.Isbn;
+import com.example.books.services.BookService;
+import com.example.books.shards.BookShards;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Integration test for the sharded storage mode.
+ * Books are spread over three in-memory databases and every endpoint answers as if they were one.
+ */
+@SpringBootTest(properties = {
+    "books.shards.count=3",
+    "books.shards.url=jdbc:h2:mem:books-shard-{shard}-${random.uuid}"
+})
+@AutoConfigureMockMvc
+@ExtendWith(SpringExtension.class)
+public class ShardedStorageIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookShards shards;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Valid ISBN-13s that sort in the order they were generated
+    private static String isbn(final int i) {
+        return Isbn.format(Isbn.withCheckDigit(978_000_000_000L + i));
+    }
+
+    private static Book book(final int i) {
+        return Book.builder().isbn(isbn(i)).author(i % 2 == 0 ? "Even" : "Odd").title("Title " + i).build();
+    }
+
+    /**
+     * Tests that books written in bulk and one by one land on the shard of their ISBN only,
+     * and are read back, listed in pages, exported and deleted across shards.
+     *
+     * @throws Exception If an error occurs during the test execution.
+     */
+    @Test
+    public void testThatBooksAreSpreadOverShardsAndMergedOnRead() throws Exception {
+
+        // Nine books in bulk and one more on its own
+        final List<Book> books = IntStream.range(1, 10).mapToObj(ShardedStorageIT::book).collect(Collectors.toList());
+        mockMvc.perform(MockMvcRequestBuilders.put("/books")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(new ObjectMapper().writeValueAsString(books)))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(9))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.[0].isbn").value(isbn(1)))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.[0].status").value("CREATED"));
+        mockMvc.perform(MockMvcRequestBuilders.put("/books/" + isbn(10))
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(new ObjectMapper().writeValueAsString(book(10))))
+        .andExpect(MockMvcResultMatchers.status().isCreated());
+
+        // Every shard holds exactly the books whose ISBN hashes to it
+        final Set<Integer> usedShards = new TreeSet<>();
+        for (int shard = 0; shard < shards.count(); shard++) {
+            final List<Long> stored = shards.call(shard, () -> jdbcTemplate.queryForList("select isbn from books", Long.class));
+            for (final long storedIsbn : stored) {
+                Assertions.assertEquals(shard, shards.shardOf(storedIsbn));
+                usedShards.add(shard);
+            }
+        }
+        Assertions.assertEquals(Set.of(0, 1, 2), usedShards);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/" + isbn(7)))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.jsonPath("$.title").value("Title 7"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/books?isbn=" + isbn(3) + "," + isbn(11) + "," + isbn(4)))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.jsonPath("$.[0].status").value("FOUND"))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.[1].status").value("MISSING"))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.[2].status").value("FOUND"));
+
+        // Pages follow the ISBN order of all shards together
+        mockMvc.perform(MockMvcRequestBuilders.get("/books?limit=4"))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.jsonPath("$[*].isbn", Matchers.contains(isbn(1), isbn(2), isbn(3), isbn(4))))
+        .andExpect(MockMvcResultMatchers.header().string(BookController.NEXT_CURSOR_HEADER, isbn(4)));
+        mockMvc.perform(MockMvcRequestBuilders.get("/books?after=" + isbn(8) + "&limit=4"))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.jsonPath("$[*].isbn", Matchers.contains(isbn(9), isbn(10))))
+        .andExpect(MockMvcResultMatchers.header().doesNotExist(BookController.NEXT_CURSOR_HEADER));
+        mockMvc.perform(MockMvcRequestBuilders.get("/authors/Even/books?limit=2"))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.jsonPath("$[*].isbn", Matchers.contains(isbn(2), isbn(4))));
+
+        // The export merges all shards into one ISBN order
+        final List<String> exported = new ArrayList<>();
+        bookService.exportBooks(book -> exported.add(book.getIsbn()));
+        Assertions.assertEquals(IntStream.rangeClosed(1, 10).mapToObj(ShardedStorageIT::isbn).collect(Collectors.toList()), exported);
+
+        mockMvc.perform(MockMvcRequestBuilders.delete("/books/" + isbn(7)))
+        .andExpect(MockMvcResultMatchers.status().isNoContent());
+        final MvcResult listed = mockMvc.perform(MockMvcRequestBuilders.get("/books?limit=100"))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andReturn();
+        Assertions.assertFalse(listed.getResponse().getContentAsString().contains(isbn(7)));
+        Assertions.assertEquals(
+            IntStream.rangeClosed(1, 10).filter(i -> i != 7).mapToObj(ShardedStorageIT::isbn).collect(Collectors.toList()),
+            bookService.listBooks().stream().map(Book::getIsbn).collect(Collectors.toList()));
+    }
+
+}
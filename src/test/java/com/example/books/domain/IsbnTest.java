@@ -0,0 +1,58 @@
+package com.example.books.domain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.OptionalLong;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test for the Isbn class.
+ * Checks that ISBN-10s and ISBN-13s are normalized to the same number and that invalid ISBNs are rejected.
+ */
+public class IsbnTest {
+
+    // Test to ensure that both forms of an ISBN, with or without separators, give the same ISBN-13.
+    @Test
+    public void testThatIsbn10AndIsbn13AreNormalized(){
+        assertEquals(9780099572954L, Isbn.parse("0099572958"));
+        assertEquals(9780099572954L, Isbn.parse("0-09-957295-8"));
+        assertEquals(9780099572954L, Isbn.parse("9780099572954"));
+        assertEquals(9780099572954L, Isbn.parse("978 0 09 957295 4"));
+        assertEquals("9780099572954", Isbn.format(Isbn.parse("0099572958")));
+    }
+
+    // Test to ensure that an ISBN-10 whose check digit is 10 is accepted with an X.
+    @Test
+    public void testThatIsbn10CheckDigitXIsAccepted(){
+        assertEquals(9780804429573L, Isbn.parse("080442957X"));
+        assertEquals(9780804429573L, Isbn.parse("0-8044-2957-x"));
+    }
+
+    // Test to ensure that wrong check digits, lengths, prefixes and characters are rejected.
+    @Test
+    public void testThatInvalidIsbnsAreRejected(){
+        assertEquals(OptionalLong.empty(), Isbn.tryParse("0099572959"));
+        assertEquals(OptionalLong.empty(), Isbn.tryParse("9780099572955"));
+        assertEquals(OptionalLong.empty(), Isbn.tryParse("123123123"));
+        assertEquals(OptionalLong.empty(), Isbn.tryParse("97800995729540"));
+        assertEquals(OptionalLong.empty(), Isbn.tryParse("9770099572957"));
+        assertEquals(OptionalLong.empty(), Isbn.tryParse("X099572958"));
+        assertEquals(OptionalLong.empty(), Isbn.tryParse("-0099572958"));
+        assertEquals(OptionalLong.empty(), Isbn.tryParse("0099572958a"));
+        assertEquals(OptionalLong.empty(), Isbn.tryParse(""));
+        assertEquals(OptionalLong.empty(), Isbn.tryParse(null));
+        assertThrows(IllegalArgumentException.class, () -> Isbn.parse("123123123"));
+    }
+
+    // Test to ensure that the check digit computed for generated ISBNs makes them valid.
+    @Test
+    public void testThatGeneratedIsbnsAreValid(){
+        for (long i = 0; i < 1000; i++) {
+            final long isbn = Isbn.withCheckDigit(978_000_000_000L + i);
+            assertEquals(isbn, Isbn.parse(Isbn.format(isbn)));
+        }
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.example.books.imports;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.books.domain.Book;
+import com.example.books.domain.Isbn;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Unit test for the ChunkParser and ChunkReader classes.
+ * Checks that files are split on line boundaries and that bad lines are rejected without stopping the parse.
+ */
+public class ChunkParserTest {
+
+    @TempDir
+    private Path directory;
+
+    // Test to ensure that CSV lines are parsed with quoted fields, CRLF terminators and a header.
+    @Test
+    public void testThatCsvLinesAreParsed(){
+        final String csv = "isbn,author,title\r\n"
+            + "0-09-957295-8,Frances Hodgson Burnett,The Secret Garden\r\n"
+            + "0141439556,Emily Bronte,\"Wuthering Heights, \"\"Annotated\"\"\"\r\n";
+
+        final ParsedChunk chunk = ChunkParser.parse(bytes(csv), new CsvRecordParser(), true);
+
+        assertEquals(2, chunk.books().size());
+        assertEquals("The Secret Garden", chunk.books().get(0).getTitle());
+        assertEquals("9780099572954", chunk.books().get(0).getIsbn());
+        assertEquals("Wuthering Heights, \"Annotated\"", chunk.books().get(1).getTitle());
+        assertEquals(List.of(), chunk.rejects());
+        assertEquals(3, chunk.lines());
+    }
+
+    // Test to ensure that malformed and invalid lines are rejected with their line number while the others are kept.
+    @Test
+    public void testThatBadLinesAreRejected(){
+        final String csv = "0099572958,Frances Hodgson Burnett\n"
+            + ",Emily Bronte,Wuthering Heights\n"
+            + "0141439557,Emily Bronte,Wuthering Heights\n"
+            + "\n"
+            + "0141439556,Emily Bronte,Wuthering Heights\n";
+
+        final ParsedChunk chunk = ChunkParser.parse(bytes(csv), new CsvRecordParser(), false);
+
+        assertEquals(1, chunk.books().size());
+        assertEquals(List.of(
+            new ParsedChunk.Reject(1, "Expected 3 fields, found 2", "0099572958,Frances Hodgson Burnett"),
+            new ParsedChunk.Reject(2, "Missing ISBN", ",Emily Bronte,Wuthering Heights"),
+            new ParsedChunk.Reject(3, "Invalid ISBN", "0141439557,Emily Bronte,Wuthering Heights")), chunk.rejects());
+    }
+
+    // Test to ensure that NDJSON lines as written by the export are parsed.
+    @Test
+    public void testThatNdjsonLinesAreParsed(){
+        final String ndjson = "{\"isbn\":\"0099572958\",\"author\":\"Frances Hodgson Burnett\",\"title\":\"The Secret Garden\"}\n"
+            + "{\"isbn\":\n";
+
+        final ParsedChunk chunk = ChunkParser.parse(bytes(ndjson), new NdjsonRecordParser(new ObjectMapper()), true);
+
+        assertEquals("Frances Hodgson Burnett", chunk.books().get(0).getAuthor());
+        assertEquals(1, chunk.rejects().size());
+    }
+
+    // Test to ensure that a file read in small chunks yields every line exactly once.
+    @Test
+    public void testThatChunksEndOnLineBoundaries() throws IOException {
+        final StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            csv.append(String.format("%d,Author %d,Title %d%n", Isbn.withCheckDigit(978_000_000_000L + i), i, i));
+        }
+        // The last line has no terminator
+        csv.append(Isbn.withCheckDigit(978_000_000_100L)).append(",Author,Title");
+        final Path file = Files.writeString(directory.resolve("books.csv"), csv);
+
+        final List<Book> books = new ArrayList<>();
+        int chunks = 0;
+        try (ChunkReader reader = new ChunkReader(file, 64)) {
+            ByteBuffer chunk;
+            while ((chunk = reader.next()) != null) {
+                final ParsedChunk parsed = ChunkParser.parse(chunk, new CsvRecordParser(), chunks++ == 0);
+                assertEquals(List.of(), parsed.rejects());
+                books.addAll(parsed.books());
+            }
+        }
+
+        assertEquals(101, books.size());
+        assertEquals(Isbn.format(Isbn.withCheckDigit(978_000_000_100L)), books.get(100).getIsbn());
+        assertEquals(true, chunks > 1);
+    }
+
+    private static ByteBuffer bytes(final String text){
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
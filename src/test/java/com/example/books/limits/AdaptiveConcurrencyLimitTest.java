@@ -0,0 +1,86 @@
+package com.example.books.limits;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test for the AdaptiveConcurrencyLimit class.
+ * Checks that requests over the limit are refused and that the limit follows the observed latency.
+ */
+public class AdaptiveConcurrencyLimitTest {
+
+    private static final long MILLIS = 1_000_000;
+
+    // Test to ensure that no more requests than the limit are admitted until one is released.
+    @Test
+    public void testThatRequestsOverTheLimitAreRefused(){
+        final AdaptiveConcurrencyLimit underTest = new AdaptiveConcurrencyLimit(2, 1, 10);
+
+        assertTrue(underTest.tryAcquire());
+        assertTrue(underTest.tryAcquire());
+        assertFalse(underTest.tryAcquire());
+
+        underTest.releaseWithoutSample();
+        assertTrue(underTest.tryAcquire());
+        assertEquals(2, underTest.getInflight());
+    }
+
+    // Test to ensure that the limit grows while latency is steady and the limit is in use.
+    @Test
+    public void testThatLimitGrowsWhileLatencyIsSteady(){
+        final AdaptiveConcurrencyLimit underTest = new AdaptiveConcurrencyLimit(10, 1, 100);
+
+        for (int i = 0; i < 50; i++) {
+            saturate(underTest, 10 * MILLIS);
+        }
+
+        assertTrue(underTest.getLimit() > 10, "limit " + underTest.getLimit());
+    }
+
+    // Test to ensure that the limit shrinks once requests start to queue, but not below the minimum.
+    @Test
+    public void testThatLimitShrinksWhenLatencyRises(){
+        final AdaptiveConcurrencyLimit underTest = new AdaptiveConcurrencyLimit(50, 5, 100);
+
+        for (int i = 0; i < 20; i++) {
+            saturate(underTest, 10 * MILLIS);
+        }
+        final int steadyLimit = underTest.getLimit();
+
+        // A few rounds of queueing; a latency that persists long enough becomes the new normal
+        for (int i = 0; i < 3; i++) {
+            saturate(underTest, 100 * MILLIS);
+        }
+
+        assertTrue(underTest.getLimit() < steadyLimit, "limit " + underTest.getLimit() + " after " + steadyLimit);
+        assertTrue(underTest.getLimit() >= 5);
+    }
+
+    // Test to ensure that an idle service does not inflate its limit.
+    @Test
+    public void testThatLimitDoesNotGrowWhenUnused(){
+        final AdaptiveConcurrencyLimit underTest = new AdaptiveConcurrencyLimit(10, 1, 100);
+
+        for (int i = 0; i < 50; i++) {
+            underTest.tryAcquire();
+            underTest.release(10 * MILLIS);
+        }
+
+        assertEquals(10, underTest.getLimit());
+    }
+
+    // Admits as many requests as the limit allows and completes them all with the given latency
+    private static void saturate(final AdaptiveConcurrencyLimit limit, final long rttNanos){
+        int admitted = 0;
+        while (limit.tryAcquire()) {
+            admitted++;
+        }
+        for (int i = 0; i < admitted; i++) {
+            limit.release(rttNanos);
+        }
+    }
+
+}
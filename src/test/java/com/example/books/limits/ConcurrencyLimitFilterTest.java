@@ -0,0 +1,58 @@
+package com.example.books.limits;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+
+/**
+ * Unit test for the ConcurrencyLimitFilter class.
+ * Checks that requests over the limit are shed with 503 and Retry-After, and that reads and writes are limited separately.
+ */
+public class ConcurrencyLimitFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    // One read and one write may run at a time
+    private final ConcurrencyLimitFilter underTest = new ConcurrencyLimitFilter(1, 1, 1, 1, 1, 3, meterRegistry);
+
+    // Test to ensure that a read arriving while the read limit is taken is shed, while a write still passes.
+    @Test
+    public void testThatRequestsOverTheLimitGet503() throws Exception {
+
+        final MockHttpServletResponse nestedReadResponse = new MockHttpServletResponse();
+        final MockHttpServletResponse nestedWriteResponse = new MockHttpServletResponse();
+
+        // While the first read is in the handler, another read and a write come in
+        final FilterChain chain = (request, response) -> {
+            underTest.doFilter(new MockHttpServletRequest("GET", "/books/0099572958"), nestedReadResponse, (req, res) -> { });
+            underTest.doFilter(new MockHttpServletRequest("PUT", "/books/0099572958"), nestedWriteResponse, (req, res) -> { });
+        };
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        underTest.doFilter(new MockHttpServletRequest("GET", "/books"), response, chain);
+
+        assertEquals(200, response.getStatus());
+        assertEquals(503, nestedReadResponse.getStatus());
+        assertEquals("3", nestedReadResponse.getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals(200, nestedWriteResponse.getStatus());
+        assertEquals(1.0, meterRegistry.get("books.concurrency.rejected").tag("kind", "read").counter().count());
+    }
+
+    // Test to ensure that endpoints outside /books, such as the actuator, are never shed.
+    @Test
+    public void testThatOtherEndpointsAreNotLimited() throws Exception {
+
+        final MockHttpServletResponse nestedResponse = new MockHttpServletResponse();
+        final FilterChain chain = (request, response) ->
+            underTest.doFilter(new MockHttpServletRequest("GET", "/actuator/prometheus"), nestedResponse, (req, res) -> { });
+        underTest.doFilter(new MockHttpServletRequest("GET", "/books"), new MockHttpServletResponse(), chain);
+
+        assertEquals(200, nestedResponse.getStatus());
+    }
+
+}
@@ -0,0 +1,68 @@
+package com.example.books.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+/**
+ * Test for the db/numeric-isbn.sql migration, run against a standalone in-memory H2 database
+ * holding a books table with the former VARCHAR key.
+ */
+public class NumericIsbnMigrationTest {
+
+    private Connection connection;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:numeric-isbn-migration");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE books (isbn VARCHAR(255) NOT NULL PRIMARY KEY, author VARCHAR(255), revision BIGINT, title VARCHAR(255))");
+            statement.execute("INSERT INTO books VALUES "
+                + "('0099572958', 'Frances Hodgson Burnett', 1, 'The Secret Garden'), "
+                + "('978-0-09-957295-4', 'Frances Hodgson Burnett', 2, 'The Secret Garden, revised'), "
+                + "('9780141439556', 'Emily Bronte', 3, 'Wuthering Heights'), "
+                + "('123123123', 'Unknown', 4, 'Not a book')");
+        }
+    }
+
+    @AfterEach
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    // Test to ensure that keys are normalized, duplicates keep their latest revision and invalid rows are set aside.
+    @Test
+    public void testThatIsbnsAreMigratedToNumbers() throws SQLException {
+        ScriptUtils.executeSqlScript(connection, new ClassPathResource("db/numeric-isbn.sql"));
+
+        assertEquals(List.of("9780099572954|The Secret Garden, revised", "9780141439556|Wuthering Heights"),
+            rows("SELECT isbn, title FROM books ORDER BY isbn"));
+        assertEquals(List.of("0099572958|Duplicate ISBN", "123123123|Invalid ISBN"),
+            rows("SELECT isbn, reason FROM books_rejected ORDER BY isbn"));
+        assertEquals(List.of("BIGINT|NO"),
+            rows("SELECT data_type, is_nullable FROM information_schema.columns WHERE table_name = 'BOOKS' AND column_name = 'ISBN'"));
+    }
+
+    private List<String> rows(final String query) throws SQLException {
+        final List<String> rows = new ArrayList<>();
+        try (Statement statement = connection.createStatement(); ResultSet resultSet = statement.executeQuery(query)) {
+            while (resultSet.next()) {
+                rows.add(resultSet.getString(1) + "|" + resultSet.getString(2));
+            }
+        }
+        return rows;
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.example.books.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.books.domain.Book;
+import com.example.books.domain.Isbn;
+
+/**
+ * Unit test for the InvertedIndex class.
+ * Checks term matching, ranking and that replaced or removed books are no longer found.
+ */
+public class InvertedIndexTest {
+
+    private final InvertedIndex underTest = new InvertedIndex();
+
+    private final Book garden = Book.builder().isbn("9780000000019").author("Frances Hodgson Burnett").title("The Secret Garden").build();
+
+    private final Book princess = Book.builder().isbn("9780000000026").author("Frances Hodgson Burnett").title("A Little Princess").build();
+
+    private final Book eyre = Book.builder().isbn("9780000000033").author("Charlotte Brontë").title("Jane Eyre").build();
+
+    // Test to ensure that matching ignores case and accents.
+    @Test
+    public void testThatSearchIsCaseAndAccentInsensitive(){
+        underTest.put(eyre);
+        assertEquals(List.of(eyre), underTest.search("BRONTE", 10));
+    }
+
+    // Test to ensure that books containing more query terms rank first, then books indexed earlier.
+    @Test
+    public void testThatResultsAreRankedByMatchingTerms(){
+        underTest.put(garden);
+        underTest.put(princess);
+        underTest.put(eyre);
+
+        assertEquals(List.of(princess, garden), underTest.search("burnett princess", 10));
+        assertEquals(List.of(garden), underTest.search("burnett", 1));
+        assertEquals(List.of(), underTest.search("dickens", 10));
+    }
+
+    // Test to ensure that a replaced book is found by its new terms only.
+    @Test
+    public void testThatReplacedBookIsReindexed(){
+        underTest.put(garden);
+        final Book renamed = Book.builder().isbn("9780000000019").author("Frances Hodgson Burnett").title("The Walled Garden").build();
+        underTest.put(renamed);
+
+        assertEquals(List.of(), underTest.search("secret", 10));
+        assertEquals(List.of(renamed), underTest.search("walled", 10));
+        assertEquals(1, underTest.size());
+    }
+
+    // Test to ensure that removed books are no longer found, also after the index has been compacted.
+    @Test
+    public void testThatRemovedBooksAreNotFound(){
+        underTest.put(garden);
+        underTest.put(princess);
+        underTest.put(eyre);
+
+        underTest.remove(Isbn.parse(garden.getIsbn()));
+        assertEquals(List.of(princess), underTest.search("burnett", 10));
+
+        // Two deletions out of three books trigger a compaction, leaving only the terms of Jane Eyre
+        underTest.remove(Isbn.parse(princess.getIsbn()));
+        assertEquals(List.of(), underTest.search("burnett", 10));
+        assertEquals(List.of(eyre), underTest.search("jane", 10));
+        assertEquals(4, underTest.termCount());
+    }
+
+    // Test to ensure that only the best matches are kept when more books match than the limit allows.
+    @Test
+    public void testThatLimitKeepsTheBestMatches(){
+        final List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            final String title = (i % 3 == 0 ? "river " : "") + (i % 4 == 0 ? "winter " : "") + "tale";
+            final Book book = Book.builder().isbn(Isbn.format(Isbn.withCheckDigit(978_000_000_000L + i))).author("Anon").title(title).build();
+            books.add(book);
+            underTest.put(book);
+        }
+        underTest.remove(Isbn.parse(books.get(12).getIsbn()));
+
+        // 0 and 12 contain all three terms, but 12 was removed; then books with two terms in indexing order
+        assertEquals(List.of(books.get(0), books.get(3), books.get(4)), underTest.search("river winter tale", 3));
+        assertEquals(List.of(books.get(0), books.get(3), books.get(6)), underTest.search("river", 3));
+    }
+
+}
@@ -0,0 +1,72 @@
+package com.example.books.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.books.search.RadixTrie.Completion;
+
+/**
+ * Unit test for the RadixTrie class.
+ * Checks prefix matching across split edges, ranking by count and removal.
+ */
+public class RadixTrieTest {
+
+    private final RadixTrie underTest = new RadixTrie();
+
+    // Test to ensure that completions share edges and are found from any prefix, case and accent insensitively.
+    @Test
+    public void testThatCompletionsAreFoundByPrefix(){
+        underTest.add("The Secret Garden");
+        underTest.add("The Secret Agent");
+        underTest.add("Thérèse Raquin");
+
+        assertEquals(List.of(new Completion("Thérèse Raquin", 1)), underTest.complete("THERE", 10));
+        assertEquals(2, underTest.complete("the secret", 10).size());
+        assertEquals(List.of(new Completion("The Secret Garden", 1)), underTest.complete("the secret g", 10));
+        assertEquals(List.of(), underTest.complete("the secrets", 10));
+        assertEquals(3, underTest.complete("", 10).size());
+    }
+
+    // Test to ensure that completions added for more books come first and the limit is applied.
+    @Test
+    public void testThatCompletionsAreRankedByCount(){
+        underTest.add("Charles Dickens");
+        underTest.add("Charlotte Brontë");
+        underTest.add("Charlotte Brontë");
+        underTest.add("Charles Darwin");
+
+        assertEquals(List.of(new Completion("Charlotte Brontë", 2)), underTest.complete("char", 1));
+    }
+
+    // Test to ensure that a completion disappears once it has been removed as often as it was added.
+    @Test
+    public void testThatRemovedCompletionsAreNotFound(){
+        underTest.add("Jane Eyre");
+        underTest.add("Jane Eyre");
+        underTest.add("Jane Austen");
+
+        underTest.remove("Jane Eyre");
+        assertEquals(2, underTest.complete("jane", 10).size());
+
+        underTest.remove("Jane Eyre");
+        assertEquals(List.of(new Completion("Jane Austen", 1)), underTest.complete("jane", 10));
+        assertEquals(1, underTest.size());
+
+        underTest.remove("Jane Austen");
+        assertEquals(List.of(), underTest.complete("", 10));
+    }
+
+    // Test to ensure that the memory estimate grows with the entries.
+    @Test
+    public void testThatMemoryEstimateIsReported(){
+        final long empty = underTest.estimatedBytes();
+        underTest.add("Frankenstein");
+        assertTrue(underTest.estimatedBytes() > empty);
+        assertTrue(underTest.estimatedBytesPerEntry() > 0);
+    }
+
+}
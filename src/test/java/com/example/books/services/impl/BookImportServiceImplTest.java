@@ -0,0 +1,91 @@
+package com.example.books.services.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.example.books.domain.BookImport;
+import com.example.books.services.BookService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit test for the BookImportServiceImpl class.
+ * Checks the validation of file names, the reject file reported to clients and the expiry of finished imports.
+ */
+@ExtendWith(MockitoExtension.class)
+public class BookImportServiceImplTest {
+
+    @Mock
+    private BookService bookService;
+
+    @TempDir
+    private Path directory;
+
+    private BookImportServiceImpl underTest;
+
+    @AfterEach
+    public void tearDown(){
+        if (underTest != null) {
+            underTest.close();
+        }
+    }
+
+    private BookImportServiceImpl importService(final Duration retention) {
+        underTest = new BookImportServiceImpl(bookService, new ObjectMapper(), directory.toString(),
+            4096, 100, 1, retention, new SimpleMeterRegistry());
+        return underTest;
+    }
+
+    // Test to ensure that names leaving the import directory or naming no file are rejected before anything is read.
+    @Test
+    public void testThatInvalidNamesAreRejected(){
+        final BookImportServiceImpl service = importService(Duration.ofHours(1));
+
+        assertThrows(IllegalArgumentException.class, () -> service.start("/"));
+        assertThrows(IllegalArgumentException.class, () -> service.start("../books.csv"));
+        assertThrows(IllegalArgumentException.class, () -> service.start("books.txt"));
+        assertEquals(Optional.empty(), service.start("missing.csv"));
+    }
+
+    // Test to ensure that the reject file is reported relative to the import directory.
+    @Test
+    public void testThatRejectFileIsRelativeToImportDirectory() throws IOException{
+        Files.createDirectories(directory.resolve("daily"));
+        Files.writeString(directory.resolve("daily/books.csv"), "isbn,author,title\n");
+
+        final BookImport started = importService(Duration.ofHours(1)).start("daily/books.csv").orElseThrow();
+
+        assertEquals(Path.of("daily", "books.csv.rejects").toString(), started.getRejectFile());
+    }
+
+    // Test to ensure that a finished import is forgotten once it is older than the retention.
+    @Test
+    public void testThatFinishedImportsExpire() throws Exception{
+        Files.writeString(directory.resolve("books.csv"), "isbn,author,title\n0099572958,Frances Hodgson Burnett,The Secret Garden\n");
+        final BookImportServiceImpl service = importService(Duration.ZERO);
+
+        final String id = service.start("books.csv").orElseThrow().getId();
+
+        final long deadline = System.currentTimeMillis() + 10000;
+        while (service.findById(id).isPresent() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(service.findById(id).isEmpty());
+    }
+
+}
@@ -1,28 +1,50 @@
 package com.example.books.services.impl;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static com.example.books.TestData.testBook;
 import static com.example.books.TestData.testBookEntity;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import com.example.books.cache.BookCache;
+import com.example.books.cache.BookExistenceFilter;
+import com.example.books.cache.CatalogVersion;
 import com.example.books.domain.Book;
 import com.example.books.domain.BookEntity;
+import com.example.books.domain.BookLookupResult;
+import com.example.books.domain.BookLookupStatus;
+import com.example.books.domain.BookPage;
+import com.example.books.domain.BookSaveResult;
+import com.example.books.domain.BookSaveStatus;
+import com.example.books.domain.Isbn;
+import com.example.books.events.BookDeletedEvent;
+import com.example.books.events.BookSavedEvent;
 import com.example.books.repositories.BookRepository;
+import com.example.books.shards.BookShards;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import jakarta.persistence.EntityManager;
 
 
 /**
@@ -37,9 +59,30 @@ public class BookServiceImplTest {
     @Mock
     private BookRepository bookRepository;
 
-    @InjectMocks
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     private BookServiceImpl underTest;
 
+    // Build the service with the mocks, an empty cache, an existence filter that has not been built yet,
+    // a catalog version over the empty repository and a small batch size for saveAll
+    @BeforeEach
+    public void setUp(){
+        final BookCache bookCache = new BookCache(100, Duration.ofMinutes(1), new SimpleMeterRegistry());
+        final BookExistenceFilter bookExistenceFilter =
+            new BookExistenceFilter(bookRepository, new BookShards(1, 1), transactionManager, 100, 0.01, new SimpleMeterRegistry());
+        final CatalogVersion catalogVersion = new CatalogVersion(bookRepository, new BookShards(1, 1));
+        underTest = new BookServiceImpl(
+            bookRepository, entityManager, bookCache, bookExistenceFilter, catalogVersion, eventPublisher, 2,
+            transactionManager, false, Duration.ofMillis(5), 10, new BookShards(1, 1));
+    }
+
     /**
      * Tests that a Book is saved correctly using the create method of BookServiceImpl.
      */
@@ -61,18 +104,92 @@ public class BookServiceImplTest {
         // assertEquals(book,null); //expected error
         assertEquals(book,result);
 
+        // Verify that the write was announced to the listeners
+        verify(eventPublisher,times(1)).publishEvent(eq(new BookSavedEvent(book)));
+
 
     }
 
+    /**
+     * Tests that upsert reports CREATED when the merge did not replace a previous row.
+     */
+    @Test
+    public void testThatUpsertReturnsCreatedWhenBookIsNew(){
+        final Book book = testBook();
+        when(bookRepository.upsert(eq(Isbn.parse(book.getIsbn())), eq(book.getAuthor()), eq(book.getTitle()), anyLong())).thenReturn(0L);
+        assertEquals(BookSaveStatus.CREATED, underTest.upsert(book));
+    }
+
+    // Test to ensure that with write-behind enabled, upsert commits through the bulk write and answers once it is done.
+    @Test
+    public void testThatUpsertWithWriteBehindCommitsInGroup() throws Exception {
+        final BookServiceImpl writeBehindService = new BookServiceImpl(
+            bookRepository, entityManager,
+            new BookCache(100, Duration.ofMinutes(1), new SimpleMeterRegistry()),
+            new BookExistenceFilter(bookRepository, new BookShards(1, 1), transactionManager, 100, 0.01, new SimpleMeterRegistry()),
+            new CatalogVersion(bookRepository, new BookShards(1, 1)), eventPublisher, 2,
+            transactionManager, true, Duration.ofMillis(1), 10, new BookShards(1, 1));
+        try {
+            final Book book = testBook();
+            when(bookRepository.findAllById(any())).thenReturn(List.of());
+
+            assertEquals(BookSaveStatus.CREATED, writeBehindService.upsert(book));
+            verify(entityManager, times(1)).persist(eq(testBookEntity()));
+            verify(transactionManager, times(1)).commit(any());
+            verify(bookRepository, times(0)).upsert(anyLong(), any(), any(), anyLong());
+        } finally {
+            writeBehindService.close();
+        }
+    }
+
+    /**
+     * Tests that upsert reports UPDATED when the merge replaced a previous row.
+     */
+    @Test
+    public void testThatUpsertReturnsUpdatedWhenBookExists(){
+        final Book book = testBook();
+        when(bookRepository.upsert(eq(Isbn.parse(book.getIsbn())), eq(book.getAuthor()), eq(book.getTitle()), anyLong())).thenReturn(1L);
+        assertEquals(BookSaveStatus.UPDATED, underTest.upsert(book));
+    }
+
+    /**
+     * Tests that saveAll updates existing books in place, persists new ones
+     * and flushes once per batch, reporting the outcome per ISBN.
+     */
+    @Test
+    public void testThatSaveAllReportsCreatedAndUpdatedBooks(){
+
+        // The test book already exists, the other two are new
+        final Book existing = testBook();
+        final Book second = Book.builder().isbn("9780000000026").author("a").title("t").build();
+        final Book third = Book.builder().isbn("9780000000033").author("a").title("t").build();
+        final BookEntity existingEntity = testBookEntity();
+        when(bookRepository.findAllById(eq(List.of(9780099572954L, 9780000000026L)))).thenReturn(List.of(existingEntity));
+        when(bookRepository.findAllById(eq(List.of(9780000000033L)))).thenReturn(List.of());
+
+        existing.setTitle("Updated title");
+        final List<BookSaveResult> result = underTest.saveAll(List.of(existing, second, third));
+
+        assertEquals(List.of(
+            new BookSaveResult(existing.getIsbn(), BookSaveStatus.UPDATED),
+            new BookSaveResult(second.getIsbn(), BookSaveStatus.CREATED),
+            new BookSaveResult(third.getIsbn(), BookSaveStatus.CREATED)), result);
+
+        // The managed entity carries the change and only the new books are persisted
+        assertEquals("Updated title", existingEntity.getTitle());
+        verify(entityManager, times(2)).persist(any(BookEntity.class));
+        verify(entityManager, times(2)).flush();
+    }
+
     // Test to ensure that the findById method returns an empty Optional when no book is found.
     @Test
     public void testThatFindByIdReturnsEmptyWhenNoBook(){
 
         // Imagine searching for a book with a fictional ISBN that doesn't exist (123123123).
-        final String isbn = "123123123";
+        final long isbn = 9781234567897L;
 
-        // Configure the mock repository to return an empty Optional when findById is called with the specified ISBN.
-        when(bookRepository.findById(eq(isbn))).thenReturn(Optional.empty());
+        // Configure the mock repository to return an empty Optional when the book is looked up with the specified ISBN.
+        when(bookRepository.findBookByIsbn(eq(isbn))).thenReturn(Optional.empty());
         
         // Now, when the service looks for that book, we expect it not to find it and return an empty Optional.
         final Optional<Book> result = underTest.findById(isbn);
@@ -85,28 +202,63 @@ public class BookServiceImplTest {
     @Test
     public void testThatFindByIdReturnsEmptyWhenNBookExists(){
 
-        // Create a test Book and BookEntity
+        // Create a test Book
         final Book book = testBook();
-        final BookEntity bookEntity = testBookEntity();
        
-        // Configure the mock repository to return an Optional containing the BookEntity when findById is called with the book's ISBN.
-        when(bookRepository.findById(eq(book.getIsbn()))).thenReturn(Optional.of(bookEntity));
+        // Configure the mock repository to return an Optional containing the Book when it is looked up with the book's ISBN.
+        when(bookRepository.findBookByIsbn(eq(Isbn.parse(book.getIsbn())))).thenReturn(Optional.of(book));
         
         // Call the findById method of the service to find the book
-        final Optional<Book> result = underTest.findById(book.getIsbn());
+        final Optional<Book> result = underTest.findById(Isbn.parse(book.getIsbn()));
 
         // Verify that the result is an Optional containing the expected Book
         assertEquals(Optional.of(book), result);
     }
 
+    // Test to ensure that a second lookup of the same book is served from the cache.
+    @Test
+    public void testThatFindByIdLoadsBookOnlyOnce(){
+
+        final Book book = testBook();
+        when(bookRepository.findBookByIsbn(eq(Isbn.parse(book.getIsbn())))).thenReturn(Optional.of(testBook()));
+
+        // Look the book up twice
+        underTest.findById(Isbn.parse(book.getIsbn()));
+        final Optional<Book> result = underTest.findById(Isbn.parse(book.getIsbn()));
+
+        // Only the first lookup reaches the repository
+        assertEquals(Optional.of(book), result);
+        verify(bookRepository, times(1)).findBookByIsbn(eq(Isbn.parse(book.getIsbn())));
+    }
+
+    // Test to ensure that the multi-get answers cached books itself and loads only the misses, in request order.
+    @Test
+    public void testThatFindAllByIdLoadsOnlyUncachedBooks(){
+
+        final Book book = testBook();
+        when(bookRepository.findBookByIsbn(eq(Isbn.parse(book.getIsbn())))).thenReturn(Optional.of(testBook()));
+        when(bookRepository.findBooksByIsbnIn(eq(List.of(9781234567897L)))).thenReturn(List.of());
+
+        // Cache the book with a single lookup
+        underTest.findById(Isbn.parse(book.getIsbn()));
+
+        final List<BookLookupResult> result = underTest.findAllById(List.of(9781234567897L, Isbn.parse(book.getIsbn())));
+
+        // Only the unknown ISBN reaches the repository, and both are answered in request order
+        assertEquals(List.of(
+            new BookLookupResult("9781234567897", BookLookupStatus.MISSING, null),
+            new BookLookupResult(book.getIsbn(), BookLookupStatus.FOUND, book)), result);
+        verify(bookRepository, times(1)).findBooksByIsbnIn(any());
+    }
+
     /**
      * Tests that the listBooks method returns an empty list when no books exist.
      */
     @Test
     public void testListBooksReturnsEmptyListWhenNoBooksExists(){
 
-        // Mock the behavior of bookRepository.findAll() to return an empty list by default
-        when(bookRepository.findAll()).thenReturn(new ArrayList<BookEntity>()); // default behavior line can be ommitted 
+        // Mock the behavior of bookRepository.findAllBooks() to return an empty list by default
+        when(bookRepository.findAllBooks()).thenReturn(new ArrayList<Book>()); // default behavior line can be ommitted 
         
         // Call the listBooks method to retrieve the list of books
         final List<Book> result = underTest.listBooks();
@@ -122,11 +274,11 @@ public class BookServiceImplTest {
     @Test
     public void testListBookReturnsBooksWhenExist(){
         
-        // Create a test BookEntity using the testBookEntity method
-        final BookEntity bookEntity = testBookEntity();
+        // Create a test Book using the testBook method
+        final Book book = testBook();
 
-        // Mock the behavior of bookRepository.findAll() to return a list containing a test BookEntity
-        when(bookRepository.findAll()).thenReturn(List.of(bookEntity));
+        // Mock the behavior of bookRepository.findAllBooks() to return a list containing a test Book
+        when(bookRepository.findAllBooks()).thenReturn(List.of(book));
 
         // Call the listBooks method to retrieve the list of books
         final List<Book> result = underTest.listBooks();
@@ -135,6 +287,56 @@ public class BookServiceImplTest {
         assertEquals(1, result.size());
     }
 
+    /**
+     * Tests that a page of books seeks past the cursor and fetches one extra row
+     * to decide whether there is a next page.
+     */
+    @Test
+    public void testListBooksPageReturnsNextCursorWhenMoreBooksExist(){
+
+        // Two books after the cursor but a page size of one
+        final Book first = Book.builder().isbn("9780000000026").author("a").title("t").build();
+        final Book second = Book.builder().isbn("9780000000033").author("a").title("t").build();
+        when(bookRepository.findBooksByIsbnGreaterThan(eq(9780000000019L), eq(2)))
+            .thenReturn(List.of(first, second));
+
+        final BookPage result = underTest.listBooks(9780000000019L, 1);
+
+        // Only the requested number of books is returned and the cursor points at the last one
+        assertEquals(1, result.getBooks().size());
+        assertEquals("9780000000026", result.getNextCursor());
+    }
+
+    /**
+     * Tests that the first page starts from the beginning and has no cursor when all books fit in it.
+     */
+    @Test
+    public void testListBooksPageReturnsNoCursorOnLastPage(){
+
+        when(bookRepository.findBooksByIsbnGreaterThan(eq(0L), eq(11)))
+            .thenReturn(List.of(testBook()));
+
+        final BookPage result = underTest.listBooks(null, 10);
+
+        assertEquals(List.of(testBook()), result.getBooks());
+        assertNull(result.getNextCursor());
+    }
+
+    /**
+     * Tests that exportBooks hands every streamed book to the consumer.
+     */
+    @Test
+    public void testExportBooksStreamsBooksToConsumer(){
+
+        when(bookRepository.streamAllBooks()).thenReturn(Stream.of(testBook()));
+
+        // Collect what the service hands out
+        final List<Book> exported = new ArrayList<>();
+        underTest.exportBooks(exported::add);
+
+        assertEquals(List.of(testBook()), exported);
+    }
+
     /**
      * Tests the isBookExists method to ensure it returns false when the book doesn't exist.
      *
@@ -145,7 +347,7 @@ public class BookServiceImplTest {
     public void testIsBookExistsReturnFalseWhenBookDoesntExists(){
 
         // Mock the behavior of bookRepository.existsById to return false
-        when(bookRepository.existsById(any())).thenReturn(false);
+        when(bookRepository.existsById(anyLong())).thenReturn(false);
 
         // Call isBookExists with a test book and assert that the result is false
         final boolean result = underTest.isBookExits(testBook());
@@ -162,7 +364,7 @@ public class BookServiceImplTest {
     public void testIsBookExistsReturnTrueWhenBookDoesExists(){
 
         // Mock the behavior of bookRepository.existsById to return true
-        when(bookRepository.existsById(any())).thenReturn(true);
+        when(bookRepository.existsById(anyLong())).thenReturn(true);
 
         // Call isBookExists with a test book and assert that the result is true
         final boolean result = underTest.isBookExits(testBook());
@@ -172,16 +374,17 @@ public class BookServiceImplTest {
     /**
      * Tests that the deleteBookById method successfully deletes a book from the repository.
      * 
-     * 1. Prepare an ISBN for a book to be deleted (e.g., isbn = "123123123").
+     * 1. Prepare an ISBN for a book to be deleted (e.g., isbn = 9781234567897).
      * 2. Execute the deleteBookById method on the underTest instance 
      *    providing the ISBN of the book to be deleted.
      * 3. Verify that the deleteById method of the bookRepository mock is called exactly once with the specified ISBN.
      */
     @Test
     public void testDeleteBookDeletesBook(){
-        final String isbn = "123123123";
+        final long isbn = 9781234567897L;
         underTest.deleteBookById(isbn);
         verify(bookRepository,times(1)).deleteById(eq(isbn));
+        verify(eventPublisher,times(1)).publishEvent(eq(new BookDeletedEvent(isbn)));
     }
 
     
@@ -0,0 +1,68 @@
+package com.example.books.shards;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test for the fan-out of the BookShards class.
+ * Checks that every shard runs its work bound to itself, one of them on the calling thread.
+ */
+public class BookShardsTest {
+
+    private BookShards underTest;
+
+    @BeforeEach
+    public void setUp() {
+        underTest = new BookShards(3, 2);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        underTest.close();
+    }
+
+    // Test to ensure that the results come back by shard, each computed with its shard bound, one on the calling thread.
+    @Test
+    public void testThatEveryShardRunsBoundToItself(){
+        final Thread caller = Thread.currentThread();
+        final AtomicInteger onCaller = new AtomicInteger();
+
+        final List<Integer> results = underTest.fanOut(shard -> {
+            if (Thread.currentThread() == caller) {
+                onCaller.incrementAndGet();
+            }
+            return BookShards.current() * 10 + shard;
+        });
+
+        assertEquals(List.of(0, 11, 22), results);
+        assertEquals(1, onCaller.get());
+        assertNull(BookShards.current());
+    }
+
+    // Test to ensure that a failing shard fails the fan-out once the other shards have finished.
+    @Test
+    public void testThatTheFailureOfAShardIsRethrown(){
+        final IllegalStateException failure = new IllegalStateException("shard 1");
+        final AtomicInteger finished = new AtomicInteger();
+
+        final IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> underTest.fanOut(shard -> {
+            if (shard == 1) {
+                throw failure;
+            }
+            return finished.incrementAndGet();
+        }));
+
+        assertSame(failure, thrown);
+        assertEquals(2, finished.get());
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.example.books.shards;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test for the OrderedMerge class.
+ * Checks the merge of ordered sources and the iteration of consecutive pages.
+ */
+public class OrderedMergeTest {
+
+    private static <T> List<T> drain(final Iterator<T> iterator) {
+        final List<T> items = new ArrayList<>();
+        iterator.forEachRemaining(items::add);
+        return items;
+    }
+
+    // Test to ensure that ordered sources, some of them empty, are merged into one order.
+    @Test
+    public void testThatSourcesAreMergedInOrder(){
+        final Iterator<Integer> merged = OrderedMerge.merge(
+            List.of(List.of(1, 4, 7).iterator(), List.<Integer>of().iterator(), List.of(2, 3, 8, 9).iterator(), List.of(5).iterator()),
+            Comparator.naturalOrder());
+
+        assertEquals(List.of(1, 2, 3, 4, 5, 7, 8, 9), drain(merged));
+    }
+
+    // Test to ensure that pages are asked for after the last item seen until one comes back empty.
+    @Test
+    public void testThatPagesAreIteratedAfterTheirLastItem(){
+        final List<Integer> asked = new ArrayList<>();
+        final Iterator<Integer> items = OrderedMerge.pages(last -> {
+            asked.add(last);
+            final int from = last == null ? 0 : last + 1;
+            return from >= 5 ? List.of() : List.of(from, from + 1);
+        });
+
+        assertEquals(List.of(0, 1, 2, 3, 4, 5), drain(items));
+        assertEquals(java.util.Arrays.asList(null, 1, 3, 5), asked);
+    }
+
+}
@@ -0,0 +1,130 @@
+package com.example.books.snapshots;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.books.domain.Book;
+import com.example.books.domain.BookPage;
+import com.example.books.domain.Isbn;
+
+/**
+ * Unit test for the CatalogSnapshotWriter and CatalogSnapshot classes.
+ * Checks that written books are found and paged from the mapped file, and that a replaced file does not
+ * affect a snapshot already mapped.
+ */
+public class CatalogSnapshotTest {
+
+    @TempDir
+    private Path directory;
+
+    private static Book book(final int i) {
+        return Book.builder()
+            .isbn(Isbn.format(Isbn.withCheckDigit(978_000_000_000L + i)))
+            .author("Autor " + i + " Brontë")
+            .title(i % 7 == 0 ? null : "Title " + i)
+            .revision(i % 5 == 0 ? null : 1_000_000L + i)
+            .build();
+    }
+
+    private static List<Book> books(final int count) {
+        final List<Book> books = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            books.add(book(i * 2));
+        }
+        return books;
+    }
+
+    private Path write(final List<Book> books, final int segmentShift) throws IOException {
+        final Path file = directory.resolve("catalog.snapshot");
+        try (CatalogSnapshotWriter writer = new CatalogSnapshotWriter(file, segmentShift)) {
+            for (final Book book : books) {
+                writer.append(book);
+            }
+            writer.commit();
+        }
+        return file;
+    }
+
+    // Test to ensure that every book is found with all its fields, and that ISBNs in between are not.
+    @Test
+    public void testThatBooksAreFound() throws IOException {
+        final List<Book> books = books(1000);
+
+        // Segments of 64 bytes make many records skip to the next segment
+        final CatalogSnapshot underTest = CatalogSnapshot.open(write(books, 6));
+
+        assertEquals(1000, underTest.size());
+        for (int i = 0; i < books.size(); i++) {
+            assertEquals(Optional.of(books.get(i)), underTest.find(Isbn.parse(books.get(i).getIsbn())));
+            assertEquals(Optional.empty(), underTest.find(Isbn.parse(book(i * 2 + 1).getIsbn())));
+        }
+        assertEquals(Optional.empty(), underTest.find(9781234567897L));
+    }
+
+    // Test to ensure that pages follow each other through the cursor until the last one.
+    @Test
+    public void testThatPagesFollowTheCursor() throws IOException {
+        final List<Book> books = books(25);
+        final CatalogSnapshot underTest = CatalogSnapshot.open(write(books, 30));
+
+        final List<Book> listed = new ArrayList<>();
+        Long after = null;
+        BookPage page;
+        do {
+            page = underTest.page(after, 10);
+            listed.addAll(page.getBooks());
+            after = page.getNextCursor() == null ? null : Isbn.parse(page.getNextCursor());
+        } while (after != null);
+
+        assertEquals(books, listed);
+        assertEquals(5, page.getBooks().size());
+
+        // A cursor between two ISBNs starts at the next one
+        assertEquals(books.get(1), underTest.page(Isbn.parse(book(1).getIsbn()), 1).getBooks().get(0));
+    }
+
+    // Test to ensure that an empty catalog gives an empty snapshot.
+    @Test
+    public void testThatEmptySnapshotHasNoBooks() throws IOException {
+        final CatalogSnapshot underTest = CatalogSnapshot.open(write(List.of(), 30));
+
+        assertEquals(0, underTest.size());
+        assertEquals(List.of(), underTest.page(null, 10).getBooks());
+        assertNull(underTest.page(null, 10).getNextCursor());
+    }
+
+    // Test to ensure that a mapped snapshot keeps its books after the file has been replaced.
+    @Test
+    public void testThatReplacedFileDoesNotChangeMappedSnapshot() throws IOException {
+        final CatalogSnapshot first = CatalogSnapshot.open(write(books(10), 30));
+        final CatalogSnapshot second = CatalogSnapshot.open(write(books(3), 30));
+
+        assertEquals(10, first.size());
+        assertEquals(Optional.of(books(10).get(9)), first.find(Isbn.parse(books(10).get(9).getIsbn())));
+        assertEquals(3, second.size());
+        try (var files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    // Test to ensure that books out of ISBN order are refused.
+    @Test
+    public void testThatBooksOutOfOrderAreRejected() throws IOException {
+        try (CatalogSnapshotWriter writer = new CatalogSnapshotWriter(directory.resolve("catalog.snapshot"))) {
+            writer.append(book(2));
+            assertThrows(IllegalArgumentException.class, () -> writer.append(book(1)));
+        }
+    }
+
+}
@@ -0,0 +1,126 @@
+package com.example.books.writes;
+
+import static com.example.books.TestData.testBook;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.books.domain.Book;
+import com.example.books.domain.BookSaveResult;
+import com.example.books.domain.BookSaveStatus;
+import com.example.books.metrics.SqlStatementCounter;
+
+/**
+ * Unit test for the GroupCommitBuffer class.
+ * Checks that writes are committed in groups, that writes to the same ISBN are coalesced and that failures reach every writer.
+ */
+public class GroupCommitBufferTest {
+
+    // The groups handed to the committer
+    private final List<List<Book>> groups = new CopyOnWriteArrayList<>();
+
+    // Commits every book as created
+    private List<BookSaveResult> commit(final List<Book> books){
+        groups.add(books);
+        return books.stream()
+            .map(book -> new BookSaveResult(book.getIsbn(), BookSaveStatus.CREATED))
+            .collect(Collectors.toList());
+    }
+
+    // Test to ensure that writes arriving within the delay are committed together, and only after the commit acknowledged.
+    @Test
+    public void testThatWritesAreCommittedTogether() throws Exception {
+        try (GroupCommitBuffer underTest = new GroupCommitBuffer(10, Duration.ofMillis(200), 100, this::commit)) {
+            final CompletableFuture<BookSaveStatus> first = underTest.submit(book("0000000001", "First"));
+            final CompletableFuture<BookSaveStatus> second = underTest.submit(book("0000000002", "Second"));
+
+            assertEquals(BookSaveStatus.CREATED, first.get(5, TimeUnit.SECONDS));
+            assertEquals(BookSaveStatus.CREATED, second.get(5, TimeUnit.SECONDS));
+            assertEquals(1, groups.size());
+            assertEquals(2, groups.get(0).size());
+        }
+    }
+
+    // Test to ensure that a full group is committed without waiting for the delay.
+    @Test
+    public void testThatFullGroupIsCommittedRightAway() throws Exception {
+        try (GroupCommitBuffer underTest = new GroupCommitBuffer(2, Duration.ofHours(1), 100, this::commit)) {
+            final CompletableFuture<BookSaveStatus> first = underTest.submit(book("0000000001", "First"));
+            underTest.submit(book("0000000002", "Second"));
+
+            assertEquals(BookSaveStatus.CREATED, first.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    // Test to ensure that only the last of several waiting writes to an ISBN is written.
+    @Test
+    public void testThatWritesToSameIsbnAreCoalesced() throws Exception {
+        try (GroupCommitBuffer underTest = new GroupCommitBuffer(10, Duration.ofMillis(200), 100, this::commit)) {
+            final CompletableFuture<BookSaveStatus> first = underTest.submit(book("0000000001", "First"));
+            final CompletableFuture<BookSaveStatus> second = underTest.submit(book("0000000001", "Second"));
+
+            assertEquals(BookSaveStatus.CREATED, first.get(5, TimeUnit.SECONDS));
+            assertEquals(BookSaveStatus.UPDATED, second.get(5, TimeUnit.SECONDS));
+            assertEquals(List.of(List.of(book("0000000001", "Second"))), groups);
+        }
+    }
+
+    // Test to ensure that every write of a group that fails to commit fails.
+    @Test
+    public void testThatFailedCommitFailsEveryWrite() throws Exception {
+        try (GroupCommitBuffer underTest = new GroupCommitBuffer(10, Duration.ofMillis(50), 100, books -> {
+            throw new IllegalStateException("Database unavailable");
+        })) {
+            final CompletableFuture<BookSaveStatus> first = underTest.submit(book("0000000001", "First"));
+            final CompletableFuture<BookSaveStatus> second = underTest.submit(book("0000000002", "Second"));
+
+            assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+            assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    // Test to ensure that closing the buffer commits the writes still waiting.
+    @Test
+    public void testThatCloseCommitsWaitingWrites() throws Exception {
+        final GroupCommitBuffer underTest = new GroupCommitBuffer(10, Duration.ofHours(1), 100, this::commit);
+        final CompletableFuture<BookSaveStatus> write = underTest.submit(book("0000000001", "First"));
+
+        underTest.close();
+
+        assertEquals(BookSaveStatus.CREATED, write.getNow(null));
+    }
+
+    // Test to ensure that the statements of a commit are counted for the writer waiting for it, before it is acknowledged.
+    @Test
+    public void testThatCommitStatementsAreCountedForTheWriter() throws Exception {
+        final SqlStatementCounter inspector = new SqlStatementCounter();
+        try (GroupCommitBuffer underTest = new GroupCommitBuffer(10, Duration.ofMillis(1), 100, books -> {
+            inspector.inspect("select");
+            inspector.inspect("insert");
+            return commit(books);
+        })) {
+            SqlStatementCounter.reset();
+            final CompletableFuture<BookSaveStatus> write = underTest.submit(book("0000000001", "First"));
+
+            assertEquals(BookSaveStatus.CREATED, write.get(5, TimeUnit.SECONDS));
+            assertEquals(2, SqlStatementCounter.count());
+        }
+    }
+
+    private static Book book(final String isbn, final String title){
+        final Book book = testBook();
+        book.setIsbn(isbn);
+        book.setTitle(title);
+        return book;
+    }
+
+}